@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.actuate;
+
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.jdbc.metadata.CompositeDataSourcePoolMetadataProvider;
+import org.springframework.boot.jdbc.metadata.DataSourcePoolMetadataProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType;
+import com.yookue.springstarter.multipledatasource.decorator.MeteredDataSource;
+import com.yookue.springstarter.multipledatasource.enumeration.TransactionManagerType;
+import com.yookue.springstarter.multipledatasource.metrics.DataSourcePoolStatistics;
+import com.yookue.springstarter.multipledatasource.metrics.LatencyHistogram;
+import com.yookue.springstarter.multipledatasource.statement.InFlightStatementTracker;
+import com.yookue.springstarter.multipledatasource.statement.SqlFingerprintAggregator;
+import com.yookue.springstarter.multipledatasource.statement.SqlFingerprintStatistics;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+
+/**
+ * Actuator endpoint that exposes a live snapshot of the configured datasources
+ * <p>
+ * Each datasource reports the pool type picked by the {@code @Order} cascade, the decorators, the live pool gauges,
+ * the acquisition percentiles, the statements in flight, the transaction manager and the bound entity manager factory and sql session factory
+ *
+ * @author David Hsing
+ */
+@Endpoint(id = "multipledatasource")
+public class MultipleDataSourceEndpoint {
+    private static final String JTA_TRANSACTION_MANAGER = "org.springframework.transaction.jta.JtaTransactionManager";    // $NON-NLS-1$
+    private static final String JPA_TRANSACTION_MANAGER = "org.springframework.orm.jpa.JpaTransactionManager";    // $NON-NLS-1$
+    private static final String JDBC_TRANSACTION_MANAGER = "org.springframework.jdbc.datasource.DataSourceTransactionManager";    // $NON-NLS-1$
+    private static final int TOP_STATEMENTS = 10;
+
+    private final Environment environment;
+    private final ListableBeanFactory beanFactory;
+    private final ObjectProvider<InFlightStatementTracker> inFlightTracker;
+    private final ObjectProvider<SqlFingerprintAggregator> fingerprintAggregator;
+    private final Collection<DataSourcePoolMetadataProvider> metadataProviders;
+
+    public MultipleDataSourceEndpoint(@Nonnull Environment environment, @Nonnull ListableBeanFactory beanFactory, @Nonnull ObjectProvider<InFlightStatementTracker> inFlightTracker, @Nonnull ObjectProvider<SqlFingerprintAggregator> fingerprintAggregator, @Nonnull Collection<DataSourcePoolMetadataProvider> metadataProviders) {
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+        this.inFlightTracker = inFlightTracker;
+        this.fingerprintAggregator = fingerprintAggregator;
+        this.metadataProviders = metadataProviders;
+    }
+
+    @ReadOperation
+    @Nonnull
+    public Map<String, DataSourceReport> dataSources() {
+        Map<String, DataSourceReport> result = new LinkedHashMap<>();
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            DataSourceReport report = report(descriptor);
+            if (report != null) {
+                result.put(descriptor.getName(), report);
+            }
+        }
+        return result;
+    }
+
+    @ReadOperation
+    @Nullable
+    public DataSourceReport dataSource(@Selector @Nonnull String name) {
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            if (descriptor.getName().equals(name)) {
+                return report(descriptor);
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private DataSourceReport report(@Nonnull DataSourceDescriptor descriptor) {
+        if (!beanFactory.containsBean(descriptor.getDataSourceBeanName())) {
+            return null;
+        }
+        DataSource dataSource = beanFactory.getBean(descriptor.getDataSourceBeanName(), DataSource.class);
+        DataSource pool = DataSourcePoolUtils.unwrapPool(dataSource);
+        DataSourcePoolType poolType = (pool == null) ? null : DataSourcePoolUtils.detectPoolType(ClassUtils.getUserClass(pool));
+        List<String> decorators = DataSourcePoolUtils.getDecoratorChain(dataSource).stream().map(Class::getName).toList();
+        return new DataSourceReport(descriptor.getPrefix(), descriptor.getDataSourceBeanName(), (poolType == null) ? "GENERIC" : poolType.name(), (pool == null) ? null : ClassUtils.getUserClass(pool).getName(),    // $NON-NLS-1$
+            decorators, poolReport(pool), acquireReport(dataSource), inFlightReport(descriptor), topStatements(descriptor), transactionManagerReport(descriptor),
+            existingBean(descriptor.getEntityManagerFactoryBeanName()), existingBean(descriptor.getSqlSessionFactoryBeanName()));
+    }
+
+    @Nullable
+    private PoolReport poolReport(@Nullable DataSource pool) {
+        if (pool == null) {
+            return null;
+        }
+        DataSourcePoolStatistics statistics = DataSourcePoolStatistics.of(pool, new CompositeDataSourcePoolMetadataProvider(metadataProviders).getDataSourcePoolMetadata(pool));
+        return (statistics == null) ? null : new PoolReport(statistics.getActive(), statistics.getIdle(), statistics.getPending(), statistics.getMax(), statistics.getMin());
+    }
+
+    @Nullable
+    private AcquireReport acquireReport(@Nonnull DataSource dataSource) {
+        MeteredDataSource metered = DataSourcePoolUtils.unwrapPool(dataSource, MeteredDataSource.class);
+        if (metered == null) {
+            return null;
+        }
+        LatencyHistogram.Snapshot snapshot = metered.getAcquireSnapshot();
+        return new AcquireReport(snapshot.getCount(), toMillis(snapshot.getMean()), toMillis(snapshot.getValueAtQuantile(0.5D)), toMillis(snapshot.getValueAtQuantile(0.99D)), toMillis(snapshot.getValueAtQuantile(0.999D)), toMillis(snapshot.getMax()));
+    }
+
+    @Nullable
+    private List<InFlightStatementTracker.InFlight> inFlightReport(@Nonnull DataSourceDescriptor descriptor) {
+        InFlightStatementTracker tracker = inFlightTracker.getIfAvailable();
+        return (tracker == null || !tracker.isTracked(descriptor.getName())) ? null : tracker.getInFlight(descriptor.getName());
+    }
+
+    @Nullable
+    private List<SqlFingerprintStatistics.Entry> topStatements(@Nonnull DataSourceDescriptor descriptor) {
+        SqlFingerprintAggregator aggregator = fingerprintAggregator.getIfAvailable();
+        SqlFingerprintStatistics statistics = (aggregator == null) ? null : aggregator.getStatistics(descriptor.getName());
+        return (statistics == null) ? null : statistics.getTop(TOP_STATEMENTS);
+    }
+
+    @Nullable
+    private TransactionManagerReport transactionManagerReport(@Nonnull DataSourceDescriptor descriptor) {
+        String beanName = descriptor.getTransactionManagerBeanName();
+        Class<?> beanType = beanFactory.containsBean(beanName) ? beanFactory.getType(beanName) : null;
+        if (beanType == null) {
+            return null;
+        }
+        return new TransactionManagerReport(beanName, transactionManagerType(beanType).name(), ClassUtils.getUserClass(beanType).getName());
+    }
+
+    @Nonnull
+    private TransactionManagerType transactionManagerType(@Nonnull Class<?> beanType) {
+        if (isAssignable(JTA_TRANSACTION_MANAGER, beanType)) {
+            return TransactionManagerType.XA;
+        } else if (isAssignable(JPA_TRANSACTION_MANAGER, beanType)) {
+            return TransactionManagerType.JPA;
+        } else if (isAssignable(JDBC_TRANSACTION_MANAGER, beanType)) {
+            return TransactionManagerType.JDBC;
+        }
+        return TransactionManagerType.OTHER;
+    }
+
+    private boolean isAssignable(@Nonnull String className, @Nonnull Class<?> beanType) {
+        return ClassUtils.isPresent(className, beanType.getClassLoader()) && ClassUtils.resolveClassName(className, beanType.getClassLoader()).isAssignableFrom(beanType);
+    }
+
+    @Nullable
+    private String existingBean(@Nonnull String beanName) {
+        return beanFactory.containsBean(beanName) ? beanName : null;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1L);
+    }
+
+
+    /**
+     * Report of a datasource of {@code com.yookue.springstarter.multipledatasource.actuate.MultipleDataSourceEndpoint}
+     *
+     * @author David Hsing
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class DataSourceReport {
+        private final String prefix;
+        private final String beanName;
+        private final String poolType;
+        private final String poolClass;
+        private final List<String> decorators;
+        private final PoolReport pool;
+        private final AcquireReport acquire;
+        private final List<InFlightStatementTracker.InFlight> inFlight;
+        private final List<SqlFingerprintStatistics.Entry> topStatements;
+        private final TransactionManagerReport transactionManager;
+        private final String entityManagerFactory;
+        private final String sqlSessionFactory;
+    }
+
+
+    /**
+     * Report of a pool of {@code com.yookue.springstarter.multipledatasource.actuate.MultipleDataSourceEndpoint}
+     *
+     * @author David Hsing
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class PoolReport {
+        private final Number active;
+        private final Number idle;
+        private final Number pending;
+        private final Number max;
+        private final Number min;
+    }
+
+
+    /**
+     * Report of the connection acquisition of {@code com.yookue.springstarter.multipledatasource.actuate.MultipleDataSourceEndpoint}
+     *
+     * @author David Hsing
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class AcquireReport {
+        private final long count;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p99Millis;
+        private final double p999Millis;
+        private final double maxMillis;
+    }
+
+
+    /**
+     * Report of a transaction manager of {@code com.yookue.springstarter.multipledatasource.actuate.MultipleDataSourceEndpoint}
+     *
+     * @author David Hsing
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class TransactionManagerReport {
+        private final String beanName;
+        private final String type;
+        private final String className;
+    }
+}
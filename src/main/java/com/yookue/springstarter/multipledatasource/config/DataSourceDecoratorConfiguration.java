@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.config;
+
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcOperations;
+import com.yookue.springstarter.datasourcebuilder.composer.DataSourceBuilder;
+import com.yookue.springstarter.datasourcebuilder.config.DataSourceBuilderConfiguration;
+import com.yookue.springstarter.multipledatasource.decorator.BulkheadDecorator;
+import com.yookue.springstarter.multipledatasource.decorator.CircuitBreakerDecorator;
+import com.yookue.springstarter.multipledatasource.decorator.ConnectionLeakMonitor;
+import com.yookue.springstarter.multipledatasource.decorator.DataSourceDecoratorPostProcessor;
+import com.yookue.springstarter.multipledatasource.decorator.LazyConnectionDecorator;
+import com.yookue.springstarter.multipledatasource.decorator.LeakDetectingDecorator;
+import com.yookue.springstarter.multipledatasource.decorator.VirtualThreadGateDecorator;
+import com.yookue.springstarter.multipledatasource.decorator.VirtualThreadPinningMonitor;
+import com.yookue.springstarter.multipledatasource.jfr.JfrDataSourceDecorator;
+import com.yookue.springstarter.multipledatasource.jfr.JfrStatementListener;
+import com.yookue.springstarter.multipledatasource.routing.ReplicaLagMonitor;
+import com.yookue.springstarter.multipledatasource.routing.ReplicaRoutingDecorator;
+import com.yookue.springstarter.multipledatasource.statement.InFlightStatementTracker;
+import com.yookue.springstarter.multipledatasource.statement.SlowQueryLogger;
+import com.yookue.springstarter.multipledatasource.statement.SqlFingerprintAggregator;
+import com.yookue.springstarter.multipledatasource.statement.StatementExecutionListener;
+import com.yookue.springstarter.multipledatasource.statement.StatementInterceptingDecorator;
+
+
+/**
+ * Configuration for the decorators of the configured datasources
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.DataSourceDecorator
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "spring.multiple-datasource", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnClass(value = {DataSource.class, JdbcOperations.class})
+@AutoConfigureAfter(value = DataSourceBuilderConfiguration.class)
+@AutoConfigureBefore(value = {DataSourceAutoConfiguration.class, PrimaryDataSourceJdbcConfiguration.class})
+@Import(value = DataSourceBuilderConfiguration.class)
+public class DataSourceDecoratorConfiguration {
+    public static final String DECORATOR_POST_PROCESSOR = "multipleDataSourceDecoratorPostProcessor";    // $NON-NLS-1$
+    public static final String REPLICA_ROUTING_DECORATOR = "multipleDataSourceReplicaRoutingDecorator";    // $NON-NLS-1$
+    public static final String REPLICA_LAG_MONITOR = "multipleDataSourceReplicaLagMonitor";    // $NON-NLS-1$
+    public static final String CIRCUIT_BREAKER_DECORATOR = "multipleDataSourceCircuitBreakerDecorator";    // $NON-NLS-1$
+    public static final String BULKHEAD_DECORATOR = "multipleDataSourceBulkheadDecorator";    // $NON-NLS-1$
+    public static final String VIRTUAL_THREAD_GATE_DECORATOR = "multipleDataSourceVirtualThreadGateDecorator";    // $NON-NLS-1$
+    public static final String VIRTUAL_THREAD_PINNING_MONITOR = "multipleDataSourceVirtualThreadPinningMonitor";    // $NON-NLS-1$
+    public static final String LEAK_DETECTING_DECORATOR = "multipleDataSourceLeakDetectingDecorator";    // $NON-NLS-1$
+    public static final String CONNECTION_LEAK_MONITOR = "multipleDataSourceConnectionLeakMonitor";    // $NON-NLS-1$
+    public static final String STATEMENT_INTERCEPTING_DECORATOR = "multipleDataSourceStatementInterceptingDecorator";    // $NON-NLS-1$
+    public static final String SQL_FINGERPRINT_AGGREGATOR = "multipleDataSourceSqlFingerprintAggregator";    // $NON-NLS-1$
+    public static final String IN_FLIGHT_STATEMENT_TRACKER = "multipleDataSourceInFlightStatementTracker";    // $NON-NLS-1$
+    public static final String SLOW_QUERY_LOGGER = "multipleDataSourceSlowQueryLogger";    // $NON-NLS-1$
+    public static final String JFR_DATA_SOURCE_DECORATOR = "multipleDataSourceJfrDecorator";    // $NON-NLS-1$
+    public static final String JFR_STATEMENT_LISTENER = "multipleDataSourceJfrStatementListener";    // $NON-NLS-1$
+    public static final String LAZY_CONNECTION_DECORATOR = "multipleDataSourceLazyConnectionDecorator";    // $NON-NLS-1$
+
+    @Bean(name = DECORATOR_POST_PROCESSOR)
+    @ConditionalOnMissingBean(name = DECORATOR_POST_PROCESSOR)
+    public static DataSourceDecoratorPostProcessor decoratorPostProcessor() {
+        return new DataSourceDecoratorPostProcessor();
+    }
+
+    @Bean(name = REPLICA_ROUTING_DECORATOR)
+    @ConditionalOnBean(value = DataSourceBuilder.class)
+    @ConditionalOnMissingBean(name = REPLICA_ROUTING_DECORATOR)
+    public ReplicaRoutingDecorator replicaRoutingDecorator(@Nonnull DataSourceBuilder builder, @Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        return new ReplicaRoutingDecorator(builder, environment, beanFactory);
+    }
+
+    @Bean(name = REPLICA_LAG_MONITOR)
+    @ConditionalOnMissingBean(name = REPLICA_LAG_MONITOR)
+    public ReplicaLagMonitor replicaLagMonitor() {
+        return new ReplicaLagMonitor();
+    }
+
+    @Bean(name = CIRCUIT_BREAKER_DECORATOR)
+    @ConditionalOnMissingBean(name = CIRCUIT_BREAKER_DECORATOR)
+    public CircuitBreakerDecorator circuitBreakerDecorator(@Nonnull Environment environment) {
+        return new CircuitBreakerDecorator(environment);
+    }
+
+    @Bean(name = BULKHEAD_DECORATOR)
+    @ConditionalOnMissingBean(name = BULKHEAD_DECORATOR)
+    public BulkheadDecorator bulkheadDecorator(@Nonnull Environment environment) {
+        return new BulkheadDecorator(environment);
+    }
+
+    @Bean(name = VIRTUAL_THREAD_PINNING_MONITOR)
+    @ConditionalOnThreading(value = Threading.VIRTUAL)
+    @ConditionalOnProperty(prefix = "spring.multiple-datasource.virtual-thread", name = "pinning-monitor", havingValue = "true")
+    @ConditionalOnMissingBean(name = VIRTUAL_THREAD_PINNING_MONITOR)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(@Nonnull Environment environment) {
+        return new VirtualThreadPinningMonitor(environment.getProperty("spring.multiple-datasource.virtual-thread.pinning-threshold", Duration.class, Duration.ofMillis(20L)));    // $NON-NLS-1$
+    }
+
+    @Bean(name = VIRTUAL_THREAD_GATE_DECORATOR)
+    @ConditionalOnThreading(value = Threading.VIRTUAL)
+    @ConditionalOnMissingBean(name = VIRTUAL_THREAD_GATE_DECORATOR)
+    public VirtualThreadGateDecorator virtualThreadGateDecorator(@Nonnull Environment environment, @Nonnull ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor) {
+        return new VirtualThreadGateDecorator(environment, pinningMonitor.getIfAvailable());
+    }
+
+    @Bean(name = CONNECTION_LEAK_MONITOR)
+    @ConditionalOnMissingBean(name = CONNECTION_LEAK_MONITOR)
+    public ConnectionLeakMonitor connectionLeakMonitor() {
+        return new ConnectionLeakMonitor();
+    }
+
+    @Bean(name = LEAK_DETECTING_DECORATOR)
+    @ConditionalOnMissingBean(name = LEAK_DETECTING_DECORATOR)
+    public LeakDetectingDecorator leakDetectingDecorator(@Nonnull Environment environment, @Nonnull ObjectProvider<ConnectionLeakMonitor> monitor) {
+        return new LeakDetectingDecorator(environment, monitor);
+    }
+
+    @Bean(name = STATEMENT_INTERCEPTING_DECORATOR)
+    @ConditionalOnMissingBean(name = STATEMENT_INTERCEPTING_DECORATOR)
+    public StatementInterceptingDecorator statementInterceptingDecorator(@Nonnull ObjectProvider<StatementExecutionListener> listeners) {
+        return new StatementInterceptingDecorator(listeners);
+    }
+
+    @Bean(name = SQL_FINGERPRINT_AGGREGATOR)
+    @ConditionalOnMissingBean(name = SQL_FINGERPRINT_AGGREGATOR)
+    public SqlFingerprintAggregator sqlFingerprintAggregator(@Nonnull Environment environment) {
+        return new SqlFingerprintAggregator(environment);
+    }
+
+    @Bean(name = IN_FLIGHT_STATEMENT_TRACKER)
+    @ConditionalOnMissingBean(name = IN_FLIGHT_STATEMENT_TRACKER)
+    public InFlightStatementTracker inFlightStatementTracker(@Nonnull Environment environment) {
+        return new InFlightStatementTracker(environment);
+    }
+
+    @Bean(name = SLOW_QUERY_LOGGER)
+    @ConditionalOnMissingBean(name = SLOW_QUERY_LOGGER)
+    public SlowQueryLogger slowQueryLogger(@Nonnull Environment environment) {
+        return new SlowQueryLogger(environment, environment.getProperty("spring.multiple-datasource.slow-query.buffer-size", Integer.class, 1024));    // $NON-NLS-1$
+    }
+
+    @Bean(name = JFR_DATA_SOURCE_DECORATOR)
+    @ConditionalOnClass(name = "jdk.jfr.FlightRecorder")
+    @ConditionalOnMissingBean(name = JFR_DATA_SOURCE_DECORATOR)
+    public JfrDataSourceDecorator jfrDataSourceDecorator(@Nonnull Environment environment) {
+        return new JfrDataSourceDecorator(environment);
+    }
+
+    @Bean(name = JFR_STATEMENT_LISTENER)
+    @ConditionalOnClass(name = "jdk.jfr.FlightRecorder")
+    @ConditionalOnMissingBean(name = JFR_STATEMENT_LISTENER)
+    public JfrStatementListener jfrStatementListener(@Nonnull Environment environment) {
+        return new JfrStatementListener(environment);
+    }
+
+    @Bean(name = LAZY_CONNECTION_DECORATOR)
+    @ConditionalOnMissingBean(name = LAZY_CONNECTION_DECORATOR)
+    public LazyConnectionDecorator lazyConnectionDecorator(@Nonnull Environment environment) {
+        return new LazyConnectionDecorator(environment);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.config;
+
+
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.jdbc.metadata.DataSourcePoolMetadataProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.decorator.MeteredDataSourceDecorator;
+import com.yookue.springstarter.multipledatasource.decorator.VirtualThreadPinningMonitor;
+import com.yookue.springstarter.multipledatasource.metrics.BulkheadMeterBinder;
+import com.yookue.springstarter.multipledatasource.metrics.CircuitBreakerMeterBinder;
+import com.yookue.springstarter.multipledatasource.metrics.ConnectionLeakMeterBinder;
+import com.yookue.springstarter.multipledatasource.metrics.DataSourcePoolMeterBinder;
+import com.yookue.springstarter.multipledatasource.metrics.DruidSqlFormatCacheMeterBinder;
+import com.yookue.springstarter.multipledatasource.metrics.DruidSqlStatMeterBinder;
+import com.yookue.springstarter.multipledatasource.metrics.TransactionMeterBinder;
+import com.yookue.springstarter.multipledatasource.metrics.VirtualThreadMeterBinder;
+import com.yookue.springstarter.multipledatasource.observation.JdbcObservationContext;
+import com.yookue.springstarter.multipledatasource.observation.JdbcObservationListener;
+import com.yookue.springstarter.multipledatasource.observation.ObservedDataSourceDecorator;
+import com.yookue.springstarter.multipledatasource.transaction.TransactionTimingPostProcessor;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.ObservationConvention;
+import io.micrometer.observation.ObservationRegistry;
+
+
+/**
+ * Configuration for the metrics of the configured datasources
+ *
+ * @author David Hsing
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "spring.multiple-datasource", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnClass(value = {DataSource.class, MeterBinder.class})
+@AutoConfigureAfter(value = DataSourceDecoratorConfiguration.class)
+public class DataSourceMetricsConfiguration {
+    public static final String METERED_DATA_SOURCE_DECORATOR = "multipleDataSourceMeteredDecorator";    // $NON-NLS-1$
+    public static final String POOL_METER_BINDER = "multipleDataSourcePoolMeterBinder";    // $NON-NLS-1$
+    public static final String OBSERVED_DATA_SOURCE_DECORATOR = "multipleDataSourceObservedDecorator";    // $NON-NLS-1$
+    public static final String JDBC_OBSERVATION_LISTENER = "multipleDataSourceJdbcObservationListener";    // $NON-NLS-1$
+    public static final String CIRCUIT_BREAKER_METER_BINDER = "multipleDataSourceCircuitBreakerMeterBinder";    // $NON-NLS-1$
+    public static final String BULKHEAD_METER_BINDER = "multipleDataSourceBulkheadMeterBinder";    // $NON-NLS-1$
+    public static final String CONNECTION_LEAK_METER_BINDER = "multipleDataSourceConnectionLeakMeterBinder";    // $NON-NLS-1$
+    public static final String TRANSACTION_TIMING_POST_PROCESSOR = "multipleDataSourceTransactionTimingPostProcessor";    // $NON-NLS-1$
+    public static final String TRANSACTION_METER_BINDER = "multipleDataSourceTransactionMeterBinder";    // $NON-NLS-1$
+    public static final String DRUID_SQL_FORMAT_CACHE_METER_BINDER = "multipleDataSourceDruidSqlFormatCacheMeterBinder";    // $NON-NLS-1$
+    public static final String DRUID_SQL_STAT_METER_BINDER = "multipleDataSourceDruidSqlStatMeterBinder";    // $NON-NLS-1$
+    public static final String VIRTUAL_THREAD_METER_BINDER = "multipleDataSourceVirtualThreadMeterBinder";    // $NON-NLS-1$
+
+    @Bean(name = TRANSACTION_TIMING_POST_PROCESSOR)
+    @ConditionalOnMissingBean(name = TRANSACTION_TIMING_POST_PROCESSOR)
+    public static TransactionTimingPostProcessor transactionTimingPostProcessor() {
+        return new TransactionTimingPostProcessor();
+    }
+
+    @Bean(name = METERED_DATA_SOURCE_DECORATOR)
+    @ConditionalOnMissingBean(name = METERED_DATA_SOURCE_DECORATOR)
+    public MeteredDataSourceDecorator meteredDataSourceDecorator(@Nonnull Environment environment) {
+        return new MeteredDataSourceDecorator(environment);
+    }
+
+    @Bean(name = POOL_METER_BINDER)
+    @ConditionalOnMissingBean(name = POOL_METER_BINDER)
+    public DataSourcePoolMeterBinder poolMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory, @Nonnull ObjectProvider<DataSourcePoolMetadataProvider> metadataProviders) {
+        return new DataSourcePoolMeterBinder(environment, beanFactory, metadataProviders.orderedStream().toList());
+    }
+
+    @Bean(name = OBSERVED_DATA_SOURCE_DECORATOR)
+    @ConditionalOnMissingBean(name = OBSERVED_DATA_SOURCE_DECORATOR)
+    public ObservedDataSourceDecorator observedDataSourceDecorator(@Nonnull Environment environment, @Nonnull ObjectProvider<ObservationRegistry> registry, @Nonnull ObjectProvider<ObservationConvention<JdbcObservationContext>> convention) {
+        return new ObservedDataSourceDecorator(environment, registry, convention);
+    }
+
+    @Bean(name = JDBC_OBSERVATION_LISTENER)
+    @ConditionalOnMissingBean(name = JDBC_OBSERVATION_LISTENER)
+    public JdbcObservationListener jdbcObservationListener(@Nonnull Environment environment, @Nonnull ObjectProvider<ObservationRegistry> registry, @Nonnull ObjectProvider<ObservationConvention<JdbcObservationContext>> convention) {
+        return new JdbcObservationListener(environment, registry, convention);
+    }
+
+    @Bean(name = CIRCUIT_BREAKER_METER_BINDER)
+    @ConditionalOnMissingBean(name = CIRCUIT_BREAKER_METER_BINDER)
+    public CircuitBreakerMeterBinder circuitBreakerMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        return new CircuitBreakerMeterBinder(environment, beanFactory);
+    }
+
+    @Bean(name = BULKHEAD_METER_BINDER)
+    @ConditionalOnMissingBean(name = BULKHEAD_METER_BINDER)
+    public BulkheadMeterBinder bulkheadMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        return new BulkheadMeterBinder(environment, beanFactory);
+    }
+
+    @Bean(name = CONNECTION_LEAK_METER_BINDER)
+    @ConditionalOnMissingBean(name = CONNECTION_LEAK_METER_BINDER)
+    public ConnectionLeakMeterBinder connectionLeakMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        return new ConnectionLeakMeterBinder(environment, beanFactory);
+    }
+
+    @Bean(name = TRANSACTION_METER_BINDER)
+    @ConditionalOnMissingBean(name = TRANSACTION_METER_BINDER)
+    public TransactionMeterBinder transactionMeterBinder(@Nonnull Environment environment) {
+        return new TransactionMeterBinder(environment);
+    }
+
+    @Bean(name = DRUID_SQL_FORMAT_CACHE_METER_BINDER)
+    @ConditionalOnClass(name = "com.alibaba.druid.filter.logging.LogFilter")
+    @ConditionalOnMissingBean(name = DRUID_SQL_FORMAT_CACHE_METER_BINDER)
+    public DruidSqlFormatCacheMeterBinder druidSqlFormatCacheMeterBinder(@Nonnull BeanFactory beanFactory) {
+        return new DruidSqlFormatCacheMeterBinder(beanFactory);
+    }
+
+    @Bean(name = DRUID_SQL_STAT_METER_BINDER)
+    @ConditionalOnClass(name = "com.alibaba.druid.filter.stat.StatFilter")
+    @ConditionalOnMissingBean(name = DRUID_SQL_STAT_METER_BINDER)
+    public DruidSqlStatMeterBinder druidSqlStatMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        return new DruidSqlStatMeterBinder(environment, beanFactory);
+    }
+
+    @Bean(name = VIRTUAL_THREAD_METER_BINDER)
+    @ConditionalOnThreading(value = Threading.VIRTUAL)
+    @ConditionalOnMissingBean(name = VIRTUAL_THREAD_METER_BINDER)
+    public VirtualThreadMeterBinder virtualThreadMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory, @Nonnull ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor) {
+        return new VirtualThreadMeterBinder(environment, beanFactory, pinningMonitor.getIfAvailable());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.config;
+
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import com.yookue.commonplexus.springcondition.annotation.ConditionalOnAllProperties;
+import com.yookue.springstarter.multipledatasource.enumeration.PartialResultPolicy;
+import com.yookue.springstarter.multipledatasource.executor.MultiDataSourceQueryExecutor;
+import com.yookue.springstarter.multipledatasource.executor.QueryExecutorProperties;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+
+
+/**
+ * Configuration for the scatter-gather query executor across the configured datasources
+ * <p>
+ * The queries run on virtual threads if {@code spring.threads.virtual.enabled} is true, otherwise on a bounded thread pool.
+ * The task executor is private to the query executor rather than a bean, so that the {@code applicationTaskExecutor} of spring boot is not backed off,
+ * unless a bean named {@code multiDataSourceQueryTaskExecutor} is defined explicitly
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.executor.MultiDataSourceQueryExecutor
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnAllProperties(value = {
+    @ConditionalOnProperty(prefix = "spring.multiple-datasource", name = "enabled", havingValue = "true", matchIfMissing = true),
+    @ConditionalOnProperty(prefix = MultiDataSourceQueryExecutorConfiguration.PROPERTIES_PREFIX, name = "enabled", havingValue = "true", matchIfMissing = true)
+})
+@ConditionalOnClass(value = {DataSource.class, JdbcOperations.class})
+@AutoConfigureAfter(value = {PrimaryDataSourceJdbcConfiguration.class, SecondaryDataSourceJdbcConfiguration.class, TertiaryDataSourceJdbcConfiguration.class, MultipleDataSourceRegistrarConfiguration.class})
+@EnableConfigurationProperties(value = QueryExecutorProperties.class)
+public class MultiDataSourceQueryExecutorConfiguration {
+    public static final String PROPERTIES_PREFIX = "spring.multiple-datasource.query-executor";    // $NON-NLS-1$
+    public static final String QUERY_EXECUTOR = "multiDataSourceQueryExecutor";    // $NON-NLS-1$
+    public static final String TASK_EXECUTOR = "multiDataSourceQueryTaskExecutor";    // $NON-NLS-1$
+    public static final String THREAD_NAME_PREFIX = "multiple-datasource-query-";    // $NON-NLS-1$
+
+    @Bean(name = QUERY_EXECUTOR)
+    @ConditionalOnMissingBean(name = QUERY_EXECUTOR)
+    public MultiDataSourceQueryExecutor queryExecutor(@Nonnull QueryExecutorProperties properties, @Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        Map<String, JdbcOperations> templates = new LinkedHashMap<>();
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            if (beanFactory.containsBean(descriptor.getJdbcTemplateBeanName())) {
+                templates.put(descriptor.getName(), beanFactory.getBean(descriptor.getJdbcTemplateBeanName(), JdbcOperations.class));
+            }
+        }
+        boolean owned = !beanFactory.containsBean(TASK_EXECUTOR);
+        AsyncTaskExecutor taskExecutor = owned ? taskExecutor(properties, Threading.VIRTUAL.isActive(environment)) : beanFactory.getBean(TASK_EXECUTOR, AsyncTaskExecutor.class);
+        return new MultiDataSourceQueryExecutor(templates, taskExecutor, ObjectUtils.defaultIfNull(properties.getTimeout(), Duration.ofSeconds(10L)), ObjectUtils.defaultIfNull(properties.getPartialResult(), PartialResultPolicy.FAIL), owned);
+    }
+
+    @Nonnull
+    private static AsyncTaskExecutor taskExecutor(@Nonnull QueryExecutorProperties properties, boolean virtual) {
+        if (virtual) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(THREAD_NAME_PREFIX);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(ObjectUtils.defaultIfNull(properties.getPoolSize(), 8) + ObjectUtils.defaultIfNull(properties.getQueueCapacity(), 64));
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        executor.setCorePoolSize(ObjectUtils.defaultIfNull(properties.getPoolSize(), 8));
+        executor.setMaxPoolSize(ObjectUtils.defaultIfNull(properties.getPoolSize(), 8));
+        executor.setQueueCapacity(ObjectUtils.defaultIfNull(properties.getQueueCapacity(), 64));
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setDaemon(true);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.config;
+
+
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.metadata.DataSourcePoolMetadataProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.actuate.MultipleDataSourceEndpoint;
+import com.yookue.springstarter.multipledatasource.statement.InFlightStatementTracker;
+import com.yookue.springstarter.multipledatasource.statement.SqlFingerprintAggregator;
+
+
+/**
+ * Configuration for the actuator endpoint of the configured datasources
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.actuate.MultipleDataSourceEndpoint
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "spring.multiple-datasource", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnClass(value = {DataSource.class, Endpoint.class})
+@ConditionalOnAvailableEndpoint(endpoint = MultipleDataSourceEndpoint.class)
+@AutoConfigureAfter(value = DataSourceDecoratorConfiguration.class)
+public class MultipleDataSourceEndpointConfiguration {
+    public static final String ENDPOINT = "multipleDataSourceEndpoint";    // $NON-NLS-1$
+
+    @Bean(name = ENDPOINT)
+    @ConditionalOnMissingBean(name = ENDPOINT)
+    public MultipleDataSourceEndpoint multipleDataSourceEndpoint(@Nonnull Environment environment, @Nonnull ListableBeanFactory beanFactory, @Nonnull ObjectProvider<InFlightStatementTracker> inFlightTracker, @Nonnull ObjectProvider<SqlFingerprintAggregator> fingerprintAggregator, @Nonnull ObjectProvider<DataSourcePoolMetadataProvider> metadataProviders) {
+        return new MultipleDataSourceEndpoint(environment, beanFactory, inFlightTracker, fingerprintAggregator, metadataProviders.orderedStream().toList());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.config;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
+import org.springframework.boot.actuate.health.CompositeHealthContributor;
+import org.springframework.boot.actuate.health.HealthContributor;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.health.CachedDataSourceHealthIndicator;
+import com.yookue.springstarter.multipledatasource.health.DataSourceHealthMonitor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+
+
+/**
+ * Configuration for the health indicators of the configured datasources
+ * <p>
+ * The indicators are contributed as {@code multipleDataSource}, with one child per datasource
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.health.CachedDataSourceHealthIndicator
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "spring.multiple-datasource", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnClass(value = {DataSource.class, HealthIndicator.class})
+@ConditionalOnEnabledHealthIndicator(value = "multipledatasource")
+@AutoConfigureAfter(value = DataSourceDecoratorConfiguration.class)
+public class MultipleDataSourceHealthConfiguration {
+    public static final String HEALTH_MONITOR = "multipleDataSourceHealthMonitor";    // $NON-NLS-1$
+    public static final String HEALTH_CONTRIBUTOR = "multipleDataSourceHealthContributor";    // $NON-NLS-1$
+
+    @Bean(name = HEALTH_MONITOR)
+    @ConditionalOnMissingBean(name = HEALTH_MONITOR)
+    public DataSourceHealthMonitor healthMonitor() {
+        return new DataSourceHealthMonitor();
+    }
+
+    @Bean(name = HEALTH_CONTRIBUTOR)
+    @ConditionalOnMissingBean(name = HEALTH_CONTRIBUTOR)
+    public HealthContributor healthContributor(@Nonnull Environment environment, @Nonnull ListableBeanFactory beanFactory, @Nonnull DataSourceHealthMonitor monitor) {
+        Map<String, HealthIndicator> indicators = new LinkedHashMap<>();
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            DataSourceFeatureProperties.HealthCheck properties = DataSourceFeatureProperties.bind(environment, descriptor).getHealthCheck();
+            if (BooleanUtils.isFalse(properties.getEnabled()) || !beanFactory.containsBean(descriptor.getDataSourceBeanName())) {
+                continue;
+            }
+            DataSource pool = DataSourcePoolUtils.unwrapPool(beanFactory.getBean(descriptor.getDataSourceBeanName(), DataSource.class));
+            if (pool == null) {
+                continue;
+            }
+            CachedDataSourceHealthIndicator indicator = new CachedDataSourceHealthIndicator(descriptor.getName(), pool, properties);
+            indicator.setRefresh(monitor.schedule(indicator));
+            indicators.put(descriptor.getName(), indicator);
+        }
+        return CompositeHealthContributor.fromMap(indicators);
+    }
+}
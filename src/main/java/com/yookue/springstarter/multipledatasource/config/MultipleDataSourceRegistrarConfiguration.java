@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.config;
+
+
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.XADataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcOperations;
+import com.yookue.commonplexus.springcondition.annotation.ConditionalOnPropertyPrefix;
+import com.yookue.springstarter.datasourcebuilder.config.DataSourceBuilderConfiguration;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.MultipleDataSourceRegistrar;
+import com.yookue.springstarter.mybatisdelegator.config.MybatisDelegatorAutoConfiguration;
+
+
+/**
+ * Configuration for the map-driven datasources under {@code spring.multiple-datasource.sources}
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.support.MultipleDataSourceRegistrar
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "spring.multiple-datasource", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnPropertyPrefix(prefix = MultipleDataSourceRegistrarConfiguration.PROPERTIES_PREFIX)
+@ConditionalOnClass(value = {DataSource.class, JdbcOperations.class})
+@AutoConfigureAfter(value = {DataSourceBuilderConfiguration.class, DruidDataSourcePreConfiguration.class, TertiaryDataSourceJdbcConfiguration.class})
+@AutoConfigureBefore(value = {DataSourceAutoConfiguration.class, XADataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+@Import(value = {DataSourceBuilderConfiguration.class, MultipleDataSourceRegistrar.class})
+public class MultipleDataSourceRegistrarConfiguration {
+    public static final String PROPERTIES_PREFIX = DataSourceDescriptors.SOURCES_PREFIX;
+
+
+    /**
+     * Configuration for importing the mybatis delegator, which the map-driven mybatis beans depend on
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = {"org.apache.ibatis.session.SqlSession", "com.yookue.springstarter.mybatisdelegator.composer.MybatisConfigurationDelegator"})
+    @Import(value = MybatisDelegatorAutoConfiguration.class)
+    static class MybatisDelegatorImportConfiguration {
+    }
+}
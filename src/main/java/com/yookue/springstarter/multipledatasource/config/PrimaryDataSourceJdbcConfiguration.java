@@ -54,10 +54,15 @@ import org.springframework.transaction.TransactionManager;
 import com.alibaba.druid.filter.Filter;
 import com.yookue.commonplexus.springcondition.annotation.ConditionalOnAnyProperties;
 import com.yookue.commonplexus.springcondition.annotation.ConditionalOnMissingProperty;
+import com.yookue.commonplexus.springcondition.annotation.ConditionalOnPropertyPrefix;
 import com.yookue.springstarter.datasourcebuilder.composer.DataSourceBuilder;
 import com.yookue.springstarter.datasourcebuilder.config.DataSourceBuilderConfiguration;
 import com.yookue.springstarter.datasourcebuilder.constant.DataSourcePoolConst;
 import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType;
+import com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaLoadBalancer;
+import com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaLoadBalancers;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
 
 
 /**
@@ -75,7 +80,7 @@ import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType
 @ConditionalOnClass(value = {DataSource.class, JdbcOperations.class})
 @AutoConfigureAfter(value = {DataSourceBuilderConfiguration.class, DruidDataSourcePreConfiguration.class})
 @AutoConfigureBefore(value = {DataSourceAutoConfiguration.class, XADataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
-@Import(value = {DataSourceBuilderConfiguration.class, PrimaryDataSourceJdbcConfiguration.Entry.class, PrimaryDataSourceJdbcConfiguration.Xa.class, PrimaryDataSourceJdbcConfiguration.Jndi.class, PrimaryDataSourceJdbcConfiguration.C3p0.class, PrimaryDataSourceJdbcConfiguration.Dbcp2.class, PrimaryDataSourceJdbcConfiguration.Druid.class, PrimaryDataSourceJdbcConfiguration.Hikari.class, PrimaryDataSourceJdbcConfiguration.OracleUcp.class, PrimaryDataSourceJdbcConfiguration.Tomcat.class, PrimaryDataSourceJdbcConfiguration.Generic.class, PrimaryDataSourceJdbcConfiguration.Stage.class})
+@Import(value = {DataSourceBuilderConfiguration.class, PrimaryDataSourceJdbcConfiguration.Entry.class, PrimaryDataSourceJdbcConfiguration.Xa.class, PrimaryDataSourceJdbcConfiguration.Jndi.class, PrimaryDataSourceJdbcConfiguration.C3p0.class, PrimaryDataSourceJdbcConfiguration.Dbcp2.class, PrimaryDataSourceJdbcConfiguration.Druid.class, PrimaryDataSourceJdbcConfiguration.Hikari.class, PrimaryDataSourceJdbcConfiguration.OracleUcp.class, PrimaryDataSourceJdbcConfiguration.Tomcat.class, PrimaryDataSourceJdbcConfiguration.Generic.class, PrimaryDataSourceJdbcConfiguration.Stage.class, PrimaryDataSourceJdbcConfiguration.Replica.class})
 @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
 public class PrimaryDataSourceJdbcConfiguration {
     public static final String PROPERTIES_PREFIX = "spring.multiple-datasource.primary";    // $NON-NLS-1$
@@ -84,6 +89,7 @@ public class PrimaryDataSourceJdbcConfiguration {
     public static final String JDBC_TEMPLATE = "primaryDataSourceJdbcTemplate";    // $NON-NLS-1$
     public static final String TRANSACTION_MANAGER = "primaryDataSourceTransactionManager";    // $NON-NLS-1$
     public static final String METADATA_PROVIDER = "primaryDataSourceMetadataProvider";    // $NON-NLS-1$
+    public static final String LOAD_BALANCER = "primaryDataSourceLoadBalancer";    // $NON-NLS-1$
 
 
     @Order(value = 0)
@@ -156,8 +162,9 @@ public class PrimaryDataSourceJdbcConfiguration {
         @Primary
         @Bean(name = METADATA_PROVIDER)
         @ConditionalOnMissingBean(name = METADATA_PROVIDER)
-        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull org.apache.commons.dbcp2.BasicDataSource dataSource) {
-            return sqlDataSource -> new CommonsDbcp2DataSourcePoolMetadata(dataSource);
+        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+            org.apache.commons.dbcp2.BasicDataSource pool = DataSourcePoolUtils.unwrapPool(dataSource, org.apache.commons.dbcp2.BasicDataSource.class);
+            return sqlDataSource -> new CommonsDbcp2DataSourcePoolMetadata(pool);
         }
     }
 
@@ -195,8 +202,9 @@ public class PrimaryDataSourceJdbcConfiguration {
         @Primary
         @Bean(name = METADATA_PROVIDER)
         @ConditionalOnMissingBean(name = METADATA_PROVIDER)
-        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull com.zaxxer.hikari.HikariDataSource dataSource) {
-            return sqlDataSource -> new HikariDataSourcePoolMetadata(dataSource);
+        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+            com.zaxxer.hikari.HikariDataSource pool = DataSourcePoolUtils.unwrapPool(dataSource, com.zaxxer.hikari.HikariDataSource.class);
+            return sqlDataSource -> new HikariDataSourcePoolMetadata(pool);
         }
     }
 
@@ -217,8 +225,9 @@ public class PrimaryDataSourceJdbcConfiguration {
         @Primary
         @Bean(name = METADATA_PROVIDER)
         @ConditionalOnMissingBean(name = METADATA_PROVIDER)
-        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull oracle.ucp.jdbc.PoolDataSourceImpl dataSource) {
-            return sqlDataSource -> new OracleUcpDataSourcePoolMetadata(dataSource);
+        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+            oracle.ucp.jdbc.PoolDataSourceImpl pool = DataSourcePoolUtils.unwrapPool(dataSource, oracle.ucp.jdbc.PoolDataSourceImpl.class);
+            return sqlDataSource -> new OracleUcpDataSourcePoolMetadata(pool);
         }
     }
 
@@ -239,8 +248,9 @@ public class PrimaryDataSourceJdbcConfiguration {
         @Primary
         @Bean(name = METADATA_PROVIDER)
         @ConditionalOnMissingBean(name = METADATA_PROVIDER)
-        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull oracle.ucp.jdbc.PoolXADataSourceImpl dataSource) {
-            return sqlDataSource -> new OracleUcpDataSourcePoolMetadata(dataSource);
+        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+            oracle.ucp.jdbc.PoolXADataSourceImpl pool = DataSourcePoolUtils.unwrapPool(dataSource, oracle.ucp.jdbc.PoolXADataSourceImpl.class);
+            return sqlDataSource -> new OracleUcpDataSourcePoolMetadata(pool);
         }
     }
 
@@ -264,8 +274,9 @@ public class PrimaryDataSourceJdbcConfiguration {
         @Primary
         @Bean(name = METADATA_PROVIDER)
         @ConditionalOnMissingBean(name = METADATA_PROVIDER)
-        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull org.apache.tomcat.jdbc.pool.DataSource dataSource) {
-            return sqlDataSource -> new TomcatDataSourcePoolMetadata(dataSource);
+        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+            org.apache.tomcat.jdbc.pool.DataSource pool = DataSourcePoolUtils.unwrapPool(dataSource, org.apache.tomcat.jdbc.pool.DataSource.class);
+            return sqlDataSource -> new TomcatDataSourcePoolMetadata(pool);
         }
     }
 
@@ -301,4 +312,16 @@ public class PrimaryDataSourceJdbcConfiguration {
             return builder.jdbcTransactionManager(dataSource, customizers);
         }
     }
+
+
+    @ConditionalOnPropertyPrefix(prefix = PROPERTIES_PREFIX + ".replicas")
+    @Order(value = 12)
+    static class Replica {
+        @Primary
+        @Bean(name = LOAD_BALANCER)
+        @ConditionalOnMissingBean(name = LOAD_BALANCER)
+        public ReplicaLoadBalancer loadBalancer(@Nonnull Environment environment) {
+            return ReplicaLoadBalancers.create(DataSourceFeatureProperties.bind(environment, PROPERTIES_PREFIX).getLoadBalance().getStrategy());
+        }
+    }
 }
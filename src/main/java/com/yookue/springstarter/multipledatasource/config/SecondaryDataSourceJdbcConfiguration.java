@@ -53,10 +53,15 @@ import org.springframework.transaction.TransactionManager;
 import com.alibaba.druid.filter.Filter;
 import com.yookue.commonplexus.springcondition.annotation.ConditionalOnAnyProperties;
 import com.yookue.commonplexus.springcondition.annotation.ConditionalOnMissingProperty;
+import com.yookue.commonplexus.springcondition.annotation.ConditionalOnPropertyPrefix;
 import com.yookue.springstarter.datasourcebuilder.composer.DataSourceBuilder;
 import com.yookue.springstarter.datasourcebuilder.config.DataSourceBuilderConfiguration;
 import com.yookue.springstarter.datasourcebuilder.constant.DataSourcePoolConst;
 import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType;
+import com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaLoadBalancer;
+import com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaLoadBalancers;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
 
 
 /**
@@ -73,7 +78,7 @@ import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType
 @ConditionalOnClass(value = {DataSource.class, JdbcOperations.class})
 @AutoConfigureAfter(value = {DataSourceBuilderConfiguration.class, PrimaryDataSourceJdbcConfiguration.class})
 @AutoConfigureBefore(value = {DataSourceAutoConfiguration.class, XADataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
-@Import(value = {DataSourceBuilderConfiguration.class, SecondaryDataSourceJdbcConfiguration.Entry.class, SecondaryDataSourceJdbcConfiguration.Xa.class, SecondaryDataSourceJdbcConfiguration.Jndi.class, SecondaryDataSourceJdbcConfiguration.C3p0.class, SecondaryDataSourceJdbcConfiguration.Dbcp2.class, SecondaryDataSourceJdbcConfiguration.Druid.class, SecondaryDataSourceJdbcConfiguration.Hikari.class, SecondaryDataSourceJdbcConfiguration.OracleUcp.class, SecondaryDataSourceJdbcConfiguration.Tomcat.class, SecondaryDataSourceJdbcConfiguration.Generic.class, SecondaryDataSourceJdbcConfiguration.Stage.class})
+@Import(value = {DataSourceBuilderConfiguration.class, SecondaryDataSourceJdbcConfiguration.Entry.class, SecondaryDataSourceJdbcConfiguration.Xa.class, SecondaryDataSourceJdbcConfiguration.Jndi.class, SecondaryDataSourceJdbcConfiguration.C3p0.class, SecondaryDataSourceJdbcConfiguration.Dbcp2.class, SecondaryDataSourceJdbcConfiguration.Druid.class, SecondaryDataSourceJdbcConfiguration.Hikari.class, SecondaryDataSourceJdbcConfiguration.OracleUcp.class, SecondaryDataSourceJdbcConfiguration.Tomcat.class, SecondaryDataSourceJdbcConfiguration.Generic.class, SecondaryDataSourceJdbcConfiguration.Stage.class, SecondaryDataSourceJdbcConfiguration.Replica.class})
 @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
 public class SecondaryDataSourceJdbcConfiguration {
     public static final String PROPERTIES_PREFIX = "spring.multiple-datasource.secondary";    // $NON-NLS-1$
@@ -82,6 +87,7 @@ public class SecondaryDataSourceJdbcConfiguration {
     public static final String JDBC_TEMPLATE = "secondaryDataSourceJdbcTemplate";    // $NON-NLS-1$
     public static final String TRANSACTION_MANAGER = "secondaryDataSourceTransactionManager";    // $NON-NLS-1$
     public static final String METADATA_PROVIDER = "secondaryDataSourceMetadataProvider";    // $NON-NLS-1$
+    public static final String LOAD_BALANCER = "secondaryDataSourceLoadBalancer";    // $NON-NLS-1$
 
 
     @Order(value = 0)
@@ -148,8 +154,9 @@ public class SecondaryDataSourceJdbcConfiguration {
 
         @Bean(name = METADATA_PROVIDER)
         @ConditionalOnMissingBean(name = METADATA_PROVIDER)
-        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull org.apache.commons.dbcp2.BasicDataSource dataSource) {
-            return sqlDataSource -> new CommonsDbcp2DataSourcePoolMetadata(dataSource);
+        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+            org.apache.commons.dbcp2.BasicDataSource pool = DataSourcePoolUtils.unwrapPool(dataSource, org.apache.commons.dbcp2.BasicDataSource.class);
+            return sqlDataSource -> new CommonsDbcp2DataSourcePoolMetadata(pool);
         }
     }
 
@@ -184,8 +191,9 @@ public class SecondaryDataSourceJdbcConfiguration {
 
         @Bean(name = METADATA_PROVIDER)
         @ConditionalOnMissingBean(name = METADATA_PROVIDER)
-        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull com.zaxxer.hikari.HikariDataSource dataSource) {
-            return sqlDataSource -> new HikariDataSourcePoolMetadata(dataSource);
+        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+            com.zaxxer.hikari.HikariDataSource pool = DataSourcePoolUtils.unwrapPool(dataSource, com.zaxxer.hikari.HikariDataSource.class);
+            return sqlDataSource -> new HikariDataSourcePoolMetadata(pool);
         }
     }
 
@@ -204,8 +212,9 @@ public class SecondaryDataSourceJdbcConfiguration {
 
         @Bean(name = METADATA_PROVIDER)
         @ConditionalOnMissingBean(name = METADATA_PROVIDER)
-        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull oracle.ucp.jdbc.PoolDataSourceImpl dataSource) {
-            return sqlDataSource -> new OracleUcpDataSourcePoolMetadata(dataSource);
+        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+            oracle.ucp.jdbc.PoolDataSourceImpl pool = DataSourcePoolUtils.unwrapPool(dataSource, oracle.ucp.jdbc.PoolDataSourceImpl.class);
+            return sqlDataSource -> new OracleUcpDataSourcePoolMetadata(pool);
         }
     }
 
@@ -224,8 +233,9 @@ public class SecondaryDataSourceJdbcConfiguration {
 
         @Bean(name = METADATA_PROVIDER)
         @ConditionalOnMissingBean(name = METADATA_PROVIDER)
-        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull oracle.ucp.jdbc.PoolXADataSourceImpl dataSource) {
-            return sqlDataSource -> new OracleUcpDataSourcePoolMetadata(dataSource);
+        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+            oracle.ucp.jdbc.PoolXADataSourceImpl pool = DataSourcePoolUtils.unwrapPool(dataSource, oracle.ucp.jdbc.PoolXADataSourceImpl.class);
+            return sqlDataSource -> new OracleUcpDataSourcePoolMetadata(pool);
         }
     }
 
@@ -247,8 +257,9 @@ public class SecondaryDataSourceJdbcConfiguration {
 
         @Bean(name = METADATA_PROVIDER)
         @ConditionalOnMissingBean(name = METADATA_PROVIDER)
-        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull org.apache.tomcat.jdbc.pool.DataSource dataSource) {
-            return sqlDataSource -> new TomcatDataSourcePoolMetadata(dataSource);
+        public DataSourcePoolMetadataProvider metadataProvider(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+            org.apache.tomcat.jdbc.pool.DataSource pool = DataSourcePoolUtils.unwrapPool(dataSource, org.apache.tomcat.jdbc.pool.DataSource.class);
+            return sqlDataSource -> new TomcatDataSourcePoolMetadata(pool);
         }
     }
 
@@ -282,4 +293,15 @@ public class SecondaryDataSourceJdbcConfiguration {
             return builder.jdbcTransactionManager(dataSource, customizers);
         }
     }
+
+
+    @ConditionalOnPropertyPrefix(prefix = PROPERTIES_PREFIX + ".replicas")
+    @Order(value = 12)
+    static class Replica {
+        @Bean(name = LOAD_BALANCER)
+        @ConditionalOnMissingBean(name = LOAD_BALANCER)
+        public ReplicaLoadBalancer loadBalancer(@Nonnull Environment environment) {
+            return ReplicaLoadBalancers.create(DataSourceFeatureProperties.bind(environment, PROPERTIES_PREFIX).getLoadBalance().getStrategy());
+        }
+    }
 }
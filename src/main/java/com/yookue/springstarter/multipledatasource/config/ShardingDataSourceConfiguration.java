@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.config;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.BeanFactoryDataSourceLookup;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.util.Assert;
+import com.yookue.commonplexus.springcondition.annotation.ConditionalOnAllProperties;
+import com.yookue.springstarter.datasourcebuilder.composer.DataSourceBuilder;
+import com.yookue.springstarter.datasourcebuilder.config.DataSourceBuilderConfiguration;
+import com.yookue.springstarter.multipledatasource.enumeration.ShardingType;
+import com.yookue.springstarter.multipledatasource.sharding.HashShardingStrategy;
+import com.yookue.springstarter.multipledatasource.sharding.RangeShardingStrategy;
+import com.yookue.springstarter.multipledatasource.sharding.ShardKeyMethodInterceptor;
+import com.yookue.springstarter.multipledatasource.sharding.ShardingDataSource;
+import com.yookue.springstarter.multipledatasource.sharding.ShardingProperties;
+import com.yookue.springstarter.multipledatasource.sharding.ShardingStrategy;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+
+
+/**
+ * Configuration for the sharding datasource across the configured datasources
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.sharding.ShardingDataSource
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnAllProperties(value = {
+    @ConditionalOnProperty(prefix = "spring.multiple-datasource", name = "enabled", havingValue = "true", matchIfMissing = true),
+    @ConditionalOnProperty(prefix = ShardingDataSourceConfiguration.PROPERTIES_PREFIX, name = "enabled", havingValue = "true")
+})
+@ConditionalOnClass(value = {DataSource.class, JdbcOperations.class})
+@AutoConfigureAfter(value = {PrimaryDataSourceJdbcConfiguration.class, SecondaryDataSourceJdbcConfiguration.class, TertiaryDataSourceJdbcConfiguration.class, MultipleDataSourceRegistrarConfiguration.class})
+@AutoConfigureBefore(value = DataSourceTransactionManagerAutoConfiguration.class)
+@EnableConfigurationProperties(value = ShardingProperties.class)
+@Import(value = DataSourceBuilderConfiguration.class)
+public class ShardingDataSourceConfiguration {
+    public static final String PROPERTIES_PREFIX = "spring.multiple-datasource.sharding";    // $NON-NLS-1$
+    public static final String DATA_SOURCE = "shardingDataSource";    // $NON-NLS-1$
+    public static final String JDBC_TEMPLATE = "shardingDataSourceJdbcTemplate";    // $NON-NLS-1$
+    public static final String TRANSACTION_MANAGER = "shardingDataSourceTransactionManager";    // $NON-NLS-1$
+    public static final String SHARDING_STRATEGY = "shardingDataSourceStrategy";    // $NON-NLS-1$
+    public static final String SHARD_KEY_ADVISOR = "shardingDataSourceShardKeyAdvisor";    // $NON-NLS-1$
+
+    @Bean(name = SHARDING_STRATEGY)
+    @ConditionalOnMissingBean(name = SHARDING_STRATEGY)
+    public ShardingStrategy shardingStrategy(@Nonnull ShardingProperties properties) {
+        return (properties.getStrategy() == ShardingType.RANGE) ? new RangeShardingStrategy(properties.getRanges(), (properties.getShards() == null) ? 0 : properties.getShards().size()) : new HashShardingStrategy();
+    }
+
+    @Bean(name = DATA_SOURCE)
+    @ConditionalOnMissingBean(name = DATA_SOURCE)
+    public ShardingDataSource dataSource(@Nonnull ShardingProperties properties, @Qualifier(value = SHARDING_STRATEGY) @Nonnull ShardingStrategy strategy, @Nonnull BeanFactory beanFactory) {
+        Assert.notEmpty(properties.getShards(), "Sharding shards must not be empty");
+        Map<Object, Object> targets = new LinkedHashMap<>(properties.getShards().size());
+        properties.getShards().forEach(shard -> targets.put(shard, toBeanName(shard)));
+        ShardingDataSource dataSource = new ShardingDataSource(properties.getShards(), strategy);
+        dataSource.setDataSourceLookup(new BeanFactoryDataSourceLookup(beanFactory));
+        dataSource.setTargetDataSources(targets);
+        if (StringUtils.isNotBlank(properties.getDefaultShard())) {
+            dataSource.setDefaultTargetDataSource(toBeanName(properties.getDefaultShard()));
+        }
+        dataSource.setLenientFallback(false);
+        return dataSource;
+    }
+
+    @Bean(name = JDBC_TEMPLATE)
+    @ConditionalOnBean(name = DATA_SOURCE)
+    @ConditionalOnMissingBean(name = JDBC_TEMPLATE)
+    public JdbcTemplate jdbcTemplate(@Qualifier(value = DATA_SOURCE) @Nonnull DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean(name = TRANSACTION_MANAGER)
+    @ConditionalOnBean(name = DATA_SOURCE, value = DataSourceBuilder.class)
+    @ConditionalOnMissingBean(name = TRANSACTION_MANAGER)
+    public TransactionManager transactionManager(@Nonnull DataSourceBuilder builder, @Qualifier(value = DATA_SOURCE) DataSource dataSource, @Nonnull ObjectProvider<TransactionManagerCustomizers> customizers) {
+        return builder.jdbcTransactionManager(dataSource, customizers);
+    }
+
+    @Bean(name = SHARD_KEY_ADVISOR)
+    @ConditionalOnMissingBean(name = SHARD_KEY_ADVISOR)
+    public static Advisor shardKeyAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new ShardKeyMethodInterceptor.ShardKeyPointcut(), new ShardKeyMethodInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    @Nonnull
+    private static String toBeanName(@Nonnull String shard) {
+        return new DataSourceDescriptor(DataSourceDescriptors.toBeanNamePrefix(shard), DataSourceDescriptors.ROOT_PREFIX + "." + shard).getDataSourceBeanName();    // $NON-NLS-1$
+    }
+}
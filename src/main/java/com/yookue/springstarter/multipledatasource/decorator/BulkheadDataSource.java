@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.Assert;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import lombok.Getter;
+
+
+/**
+ * Bulkhead datasource that limits the concurrent borrowers of the datasource, above the pool
+ * <p>
+ * A borrower holds a permit from acquisition to close. If no permit is available, the borrower waits in a bounded queue for at most {@code queueTimeout},
+ * and is refused with {@link com.yookue.springstarter.multipledatasource.decorator.BulkheadFullException} if the queue is full or the wait times out
+ *
+ * @author David Hsing
+ */
+@Getter
+public class BulkheadDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final String name;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final long queueTimeoutNanos;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejectionCount = new LongAdder();
+
+    public BulkheadDataSource(@Nonnull String name, @Nonnull DataSource dataSource, int maxConcurrent, int queueCapacity, @Nonnull Duration queueTimeout) {
+        super(dataSource);
+        Assert.isTrue(maxConcurrent > 0, "Max concurrent must be positive");
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = Math.max(queueCapacity, 0);
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection() throws SQLException {
+        acquirePermit();
+        try {
+            return ConnectionCloseHandler.proxy(obtainTargetDataSource().getConnection(), permits::release);
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquirePermit();
+        try {
+            return ConnectionCloseHandler.proxy(obtainTargetDataSource().getConnection(username, password), permits::release);
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    private void acquirePermit() throws SQLException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > queueCapacity) {
+            waiting.decrementAndGet();
+            throw reject("queue is full");    // $NON-NLS-1$
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw reject("wait is interrupted");    // $NON-NLS-1$
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            throw reject("wait timed out");    // $NON-NLS-1$
+        }
+    }
+
+    @Nonnull
+    private BulkheadFullException reject(@Nonnull String reason) {
+        rejectionCount.increment();
+        return new BulkheadFullException("Bulkhead of datasource '" + name + "' is full, " + reason);
+    }
+
+    @Override
+    public void close() {
+        DataSourcePoolUtils.closeQuietly(getTargetDataSource());
+    }
+}
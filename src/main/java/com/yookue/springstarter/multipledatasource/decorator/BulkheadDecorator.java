@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+
+
+/**
+ * Decorator that wraps the datasource with a bulkhead, if {@code bulkhead.enabled} is true
+ * <p>
+ * It is applied inside the circuit breaker, so that an open circuit refuses the borrowers before they queue
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.BulkheadDataSource
+ */
+public class BulkheadDecorator implements DataSourceDecorator {
+    public static final int ORDER = 900;
+
+    private final Environment environment;
+
+    public BulkheadDecorator(@Nonnull Environment environment) {
+        this.environment = environment;
+    }
+
+    @Nonnull
+    @Override
+    public DataSource decorate(@Nonnull DataSourceDescriptor descriptor, @Nonnull DataSource dataSource) {
+        DataSourceFeatureProperties.Bulkhead properties = DataSourceFeatureProperties.bind(environment, descriptor).getBulkhead();
+        if (BooleanUtils.isNotTrue(properties.getEnabled())) {
+            return dataSource;
+        }
+        return new BulkheadDataSource(descriptor.getName(), dataSource, ObjectUtils.defaultIfNull(properties.getMaxConcurrent(), 10), ObjectUtils.defaultIfNull(properties.getQueueCapacity(), 20), ObjectUtils.defaultIfNull(properties.getQueueTimeout(), Duration.ofSeconds(1L)));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
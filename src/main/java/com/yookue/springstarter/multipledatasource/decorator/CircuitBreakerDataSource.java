@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.Assert;
+import com.yookue.springstarter.multipledatasource.enumeration.CircuitBreakerState;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Circuit breaker datasource that fails fast after consecutive acquisition failures
+ * <p>
+ * After {@code failureThreshold} consecutive failures, the circuit opens and refuses the connections immediately.
+ * After {@code waitDuration}, the circuit becomes half-open and lets one probe through, which closes the circuit on success or reopens it on failure.
+ * A closed circuit costs two volatile reads per acquisition, and the refusals of the bulkhead are not counted as failures.
+ * A probe that is refused by the bulkhead, or ends with an error, reopens the circuit for another {@code waitDuration}
+ *
+ * @author David Hsing
+ */
+@Getter
+@Slf4j
+public class CircuitBreakerDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final String name;
+    private final int failureThreshold;
+    private final long waitNanos;
+    private final AtomicReference<CircuitBreakerState> state = new AtomicReference<>(CircuitBreakerState.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder rejectionCount = new LongAdder();
+    private volatile long openedNanos;
+
+    public CircuitBreakerDataSource(@Nonnull String name, @Nonnull DataSource dataSource, int failureThreshold, @Nonnull Duration waitDuration) {
+        super(dataSource);
+        Assert.isTrue(failureThreshold > 0, "Failure threshold must be positive");
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.waitNanos = waitDuration.toNanos();
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection() throws SQLException {
+        boolean probe = acquirePermission();
+        try {
+            Connection connection = obtainTargetDataSource().getConnection();
+            onSuccess();
+            return connection;
+        } catch (BulkheadFullException ex) {
+            throw ex;
+        } catch (SQLException | RuntimeException ex) {
+            onFailure();
+            throw ex;
+        } finally {
+            if (probe) {
+                releaseProbe();
+            }
+        }
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection(String username, String password) throws SQLException {
+        boolean probe = acquirePermission();
+        try {
+            Connection connection = obtainTargetDataSource().getConnection(username, password);
+            onSuccess();
+            return connection;
+        } catch (BulkheadFullException ex) {
+            throw ex;
+        } catch (SQLException | RuntimeException ex) {
+            onFailure();
+            throw ex;
+        } finally {
+            if (probe) {
+                releaseProbe();
+            }
+        }
+    }
+
+    @Nonnull
+    public CircuitBreakerState getCurrentState() {
+        return state.get();
+    }
+
+    /**
+     * Returns whether the caller is the probe of a half-open circuit
+     */
+    private boolean acquirePermission() throws SQLException {
+        CircuitBreakerState current = state.get();
+        if (current == CircuitBreakerState.CLOSED) {
+            return false;
+        }
+        if (current == CircuitBreakerState.OPEN && System.nanoTime() - openedNanos >= waitNanos && state.compareAndSet(CircuitBreakerState.OPEN, CircuitBreakerState.HALF_OPEN)) {
+            return true;
+        }
+        rejectionCount.increment();
+        throw new CircuitBreakerOpenException("Circuit of datasource '" + name + "' is " + current.getValue());
+    }
+
+    private void onSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (state.get() == CircuitBreakerState.HALF_OPEN && state.compareAndSet(CircuitBreakerState.HALF_OPEN, CircuitBreakerState.CLOSED) && log.isInfoEnabled()) {
+            log.info("Circuit of datasource '{}' is closed", name);
+        }
+    }
+
+    private void onFailure() {
+        failureCount.increment();
+        if (state.get() == CircuitBreakerState.HALF_OPEN) {
+            open(CircuitBreakerState.HALF_OPEN);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(CircuitBreakerState.CLOSED);
+        }
+    }
+
+    /**
+     * Reopens the circuit if the probe ended with neither a success nor a failure, such as a refusal of the bulkhead or an error
+     */
+    private void releaseProbe() {
+        if (state.get() == CircuitBreakerState.HALF_OPEN) {
+            openedNanos = System.nanoTime();
+            state.compareAndSet(CircuitBreakerState.HALF_OPEN, CircuitBreakerState.OPEN);
+        }
+    }
+
+    private void open(@Nonnull CircuitBreakerState expected) {
+        openedNanos = System.nanoTime();
+        if (state.compareAndSet(expected, CircuitBreakerState.OPEN)) {
+            consecutiveFailures.set(0);
+            if (log.isWarnEnabled()) {
+                log.warn("Circuit of datasource '{}' is open, connections are refused for {} ms", name, waitNanos / 1_000_000L);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        DataSourcePoolUtils.closeQuietly(getTargetDataSource());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import jakarta.annotation.Nonnull;
+
+
+/**
+ * Invocation handler that runs a callback once the connection is closed
+ * <p>
+ * It is used by the decorators that track the connections from acquisition to release
+ *
+ * @author David Hsing
+ */
+public class ConnectionCloseHandler implements InvocationHandler {
+    private final Connection target;
+    private final Runnable callback;
+    private boolean closed;
+
+    private ConnectionCloseHandler(@Nonnull Connection target, @Nonnull Runnable callback) {
+        this.target = target;
+        this.callback = callback;
+    }
+
+    /**
+     * Returns a proxy of the specified connection, which runs the callback once it is closed
+     *
+     * @param target the connection to proxy
+     * @param callback the callback to run on close
+     *
+     * @return a proxy of the specified connection
+     */
+    @Nonnull
+    public static Connection proxy(@Nonnull Connection target, @Nonnull Runnable callback) {
+        return (Connection) Proxy.newProxyInstance(ConnectionCloseHandler.class.getClassLoader(), new Class<?>[]{Connection.class}, new ConnectionCloseHandler(target, callback));
+    }
+
+    @Override
+    public Object invoke(Object proxy, @Nonnull Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":    // $NON-NLS-1$
+                return proxy == args[0];
+            case "hashCode":    // $NON-NLS-1$
+                return System.identityHashCode(proxy);
+            case "close":    // $NON-NLS-1$
+                if (closed) {
+                    return null;
+                }
+                closed = true;
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getTargetException();
+                } finally {
+                    callback.run();
+                }
+            case "isClosed":    // $NON-NLS-1$
+                if (closed) {
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Monitor that scans the borrows of the leak detecting datasources on a shared scheduler
+ * <p>
+ * Each datasource is scanned every half of its threshold, nothing is added to the connection acquisition but a timestamp
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.LeakDetectingDataSource
+ */
+@Slf4j
+public class ConnectionLeakMonitor implements DisposableBean {
+    private final ScheduledExecutorService scheduler;
+
+    public ConnectionLeakMonitor() {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("multiple-datasource-leak-scan-");    // $NON-NLS-1$
+        factory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(factory);
+    }
+
+    /**
+     * Schedules the scan of the specified datasource
+     *
+     * @param dataSource the leak detecting datasource
+     *
+     * @return the scheduled scan
+     */
+    @Nonnull
+    public ScheduledFuture<?> schedule(@Nonnull LeakDetectingDataSource dataSource) {
+        long interval = Math.max(TimeUnit.NANOSECONDS.toMillis(dataSource.getThresholdNanos()) / 2L, 100L);
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                dataSource.scan();
+            } catch (RuntimeException ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Failed to scan connection leaks of datasource '{}'", dataSource.getName(), ex);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
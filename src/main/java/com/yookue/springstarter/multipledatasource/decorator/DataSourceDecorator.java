@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.core.Ordered;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+
+
+/**
+ * Decorator for the datasource beans of the configured prefixes
+ * <p>
+ * The decorators are applied by ascending order, the first one wraps the physical pool
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.DataSourceDecoratorPostProcessor
+ */
+public interface DataSourceDecorator extends Ordered {
+    /**
+     * Returns the decorated datasource, or the specified datasource itself if not applicable
+     *
+     * @param descriptor the descriptor of the datasource
+     * @param dataSource the datasource to decorate
+     *
+     * @return the decorated datasource, or the specified datasource itself if not applicable
+     */
+    @Nonnull
+    DataSource decorate(@Nonnull DataSourceDescriptor descriptor, @Nonnull DataSource dataSource);
+
+    @Override
+    default int getOrder() {
+        return 0;
+    }
+}
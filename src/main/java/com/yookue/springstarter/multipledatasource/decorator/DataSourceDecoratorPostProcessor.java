@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.util.List;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+
+
+/**
+ * Post processor that applies the {@link com.yookue.springstarter.multipledatasource.decorator.DataSourceDecorator}s to the datasource beans of the configured prefixes
+ * <p>
+ * The datasource beans stay untouched if no decorator applies
+ *
+ * @author David Hsing
+ */
+public class DataSourceDecoratorPostProcessor implements BeanPostProcessor, BeanFactoryAware, EnvironmentAware, Ordered {
+    private BeanFactory beanFactory;
+    private Environment environment;
+    private volatile List<DataSourceDescriptor> descriptors;
+
+    @Override
+    public Object postProcessAfterInitialization(@Nonnull Object bean, @Nonnull String beanName) throws BeansException {
+        if (!(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        DataSourceDescriptor descriptor = DataSourceDescriptors.findByBeanName(getDescriptors(), beanName);
+        if (descriptor == null) {
+            return bean;
+        }
+        DataSource result = dataSource;
+        for (DataSourceDecorator decorator : beanFactory.getBeanProvider(DataSourceDecorator.class).orderedStream().toList()) {
+            result = decorator.decorate(descriptor, result);
+        }
+        return result;
+    }
+
+    @Nonnull
+    private List<DataSourceDescriptor> getDescriptors() {
+        if (descriptors == null) {
+            descriptors = DataSourceDescriptors.resolveAll(environment);
+        }
+        return descriptors;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public void setBeanFactory(@Nonnull BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setEnvironment(@Nonnull Environment environment) {
+        this.environment = environment;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+
+
+/**
+ * Lazy connection proxy that fetches the physical connection on the first statement, and closes the target datasource on destroy
+ *
+ * @author David Hsing
+ * @see org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy
+ */
+public class LazyConnectionDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+    public LazyConnectionDataSource(@Nonnull DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public void close() {
+        DataSourcePoolUtils.closeQuietly(getTargetDataSource());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import com.yookue.springstarter.multipledatasource.routing.ReplicaRoutingDataSource;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+
+
+/**
+ * Decorator that wraps the datasource with a lazy connection proxy, as the outermost decorator, if {@code lazy-connection} is true
+ * <p>
+ * The transactions that never execute a statement do not acquire a physical connection, and the auto-commit, isolation and read-only settings are applied on the first statement.
+ * The routing datasource is always wrapped, since its route depends on the transaction synchronization.
+ * The inner decorators see the physical acquisitions, which happen on the first statement
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.LazyConnectionDataSource
+ */
+public class LazyConnectionDecorator implements DataSourceDecorator {
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    private final Environment environment;
+
+    public LazyConnectionDecorator(@Nonnull Environment environment) {
+        this.environment = environment;
+    }
+
+    @Nonnull
+    @Override
+    public DataSource decorate(@Nonnull DataSourceDescriptor descriptor, @Nonnull DataSource dataSource) {
+        if (dataSource instanceof LazyConnectionDataSourceProxy) {
+            return dataSource;
+        }
+        boolean enabled = BooleanUtils.isTrue(DataSourceFeatureProperties.bind(environment, descriptor).getLazyConnection());
+        if (!enabled && DataSourcePoolUtils.unwrapPool(dataSource, ReplicaRoutingDataSource.class) == null) {
+            return dataSource;
+        }
+        return new LazyConnectionDataSource(dataSource);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
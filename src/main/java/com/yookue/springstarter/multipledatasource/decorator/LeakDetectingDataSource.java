@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Leak detecting datasource that timestamps each borrow, and reports the connections held longer than the threshold
+ * <p>
+ * The stack trace of the borrower is captured on borrow for a sampled fraction only,
+ * for the others, the current stack trace of the borrowing thread is captured when the leak is detected.
+ * The borrows are scanned by the {@link com.yookue.springstarter.multipledatasource.decorator.ConnectionLeakMonitor} in background
+ *
+ * @author David Hsing
+ */
+@Getter
+@Slf4j
+public class LeakDetectingDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final String name;
+    private final long thresholdNanos;
+    private final double sampleRate;
+    @Getter(value = AccessLevel.NONE)
+    private final Set<Borrow> borrows = ConcurrentHashMap.newKeySet();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder lateReturnCount = new LongAdder();
+    private volatile Future<?> scanner;
+
+    public LeakDetectingDataSource(@Nonnull String name, @Nonnull DataSource dataSource, long thresholdNanos, double sampleRate) {
+        super(dataSource);
+        this.name = name;
+        this.thresholdNanos = thresholdNanos;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection() throws SQLException {
+        return track(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    @Nonnull
+    private Connection track(@Nonnull Connection connection) {
+        boolean sampled = sampleRate > 0.0D && (sampleRate >= 1.0D || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        Borrow borrow = new Borrow(System.nanoTime(), Thread.currentThread(), sampled ? new Throwable("Connection borrowed here") : null);    // $NON-NLS-1$
+        borrows.add(borrow);
+        return ConnectionCloseHandler.proxy(connection, () -> {
+            borrows.remove(borrow);
+            if (borrow.reported) {
+                lateReturnCount.increment();
+                if (log.isInfoEnabled()) {
+                    log.info("Leaked connection of datasource '{}' returned after {} ms", name, (System.nanoTime() - borrow.start) / 1_000_000L);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reports the borrows held longer than the threshold, which is invoked by the monitor
+     */
+    public void scan() {
+        long now = System.nanoTime();
+        for (Borrow borrow : borrows) {
+            if (borrow.reported || now - borrow.start < thresholdNanos) {
+                continue;
+            }
+            borrow.reported = true;
+            leakCount.increment();
+            if (log.isWarnEnabled()) {
+                Throwable trace = borrow.stack;
+                if (trace == null) {
+                    trace = new Throwable("Borrowing thread '" + borrow.thread.getName() + "' is currently here");    // $NON-NLS-1$ // $NON-NLS-2$
+                    trace.setStackTrace(borrow.thread.getStackTrace());
+                }
+                log.warn("Possible connection leak on datasource '{}', held for {} ms by thread '{}'", name, (now - borrow.start) / 1_000_000L, borrow.thread.getName(), trace);
+            }
+        }
+    }
+
+    /**
+     * Returns the count of the connections that are currently reported as leaked
+     *
+     * @return the count of the connections that are currently reported as leaked
+     */
+    public int getActiveLeakCount() {
+        int count = 0;
+        for (Borrow borrow : borrows) {
+            if (borrow.reported) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the count of the connections that are currently borrowed
+     *
+     * @return the count of the connections that are currently borrowed
+     */
+    public int getBorrowedCount() {
+        return borrows.size();
+    }
+
+    /**
+     * Sets the scheduled scanner of the borrows, which will be cancelled on close
+     *
+     * @param scanner the scheduled scanner
+     */
+    public void setScanner(@Nullable Future<?> scanner) {
+        this.scanner = scanner;
+    }
+
+    @Override
+    public void close() {
+        Future<?> future = scanner;
+        if (future != null) {
+            future.cancel(false);
+        }
+        DataSourcePoolUtils.closeQuietly(getTargetDataSource());
+    }
+
+
+    private static class Borrow {
+        private final long start;
+        private final Thread thread;
+        private final Throwable stack;
+        private volatile boolean reported;
+
+        private Borrow(long start, @Nonnull Thread thread, @Nullable Throwable stack) {
+            this.start = start;
+            this.thread = thread;
+            this.stack = stack;
+        }
+    }
+}
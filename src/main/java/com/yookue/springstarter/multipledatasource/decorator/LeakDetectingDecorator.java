@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+
+
+/**
+ * Decorator that wraps the datasource with a leak detecting datasource, if {@code leak-detection.threshold} is present
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.LeakDetectingDataSource
+ */
+public class LeakDetectingDecorator implements DataSourceDecorator {
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 250;
+
+    private final Environment environment;
+    private final ObjectProvider<ConnectionLeakMonitor> monitor;
+
+    public LeakDetectingDecorator(@Nonnull Environment environment, @Nonnull ObjectProvider<ConnectionLeakMonitor> monitor) {
+        this.environment = environment;
+        this.monitor = monitor;
+    }
+
+    @Nonnull
+    @Override
+    public DataSource decorate(@Nonnull DataSourceDescriptor descriptor, @Nonnull DataSource dataSource) {
+        DataSourceFeatureProperties.LeakDetection properties = DataSourceFeatureProperties.bind(environment, descriptor).getLeakDetection();
+        Duration threshold = properties.getThreshold();
+        ConnectionLeakMonitor leakMonitor = monitor.getIfAvailable();
+        if (threshold == null || threshold.isNegative() || threshold.isZero() || leakMonitor == null) {
+            return dataSource;
+        }
+        double sampleRate = ObjectUtils.defaultIfNull(properties.getSampleRate(), 0.01D);
+        LeakDetectingDataSource result = new LeakDetectingDataSource(descriptor.getName(), dataSource, threshold.toNanos(), sampleRate);
+        result.setScanner(leakMonitor.schedule(result));
+        return result;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
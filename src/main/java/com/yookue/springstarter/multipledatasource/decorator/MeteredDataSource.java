@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import com.yookue.springstarter.multipledatasource.metrics.LatencyHistogram;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import lombok.Getter;
+
+
+/**
+ * Metered datasource that records the acquisition and usage time of the connections, with lock-free adders
+ * <p>
+ * The usage time is from acquisition to close of each connection.
+ * The acquisition time is recorded by a {@link com.yookue.springstarter.multipledatasource.metrics.LatencyHistogram} as well, for the percentiles
+ *
+ * @author David Hsing
+ */
+@Getter
+public class MeteredDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final String name;
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAdder usageCount = new LongAdder();
+    private final LongAdder usageNanos = new LongAdder();
+    private final LatencyHistogram acquireHistogram;
+
+    public MeteredDataSource(@Nonnull String name, @Nonnull DataSource dataSource, @Nonnull LatencyHistogram acquireHistogram) {
+        super(dataSource);
+        this.name = name;
+        this.acquireHistogram = acquireHistogram;
+    }
+
+    /**
+     * Returns a snapshot of the acquisition time percentiles
+     *
+     * @return a snapshot of the acquisition time percentiles
+     */
+    @Nonnull
+    public LatencyHistogram.Snapshot getAcquireSnapshot() {
+        return acquireHistogram.snapshot();
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection();
+        return track(connection, start);
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection(username, password);
+        return track(connection, start);
+    }
+
+    @Nonnull
+    private Connection track(@Nonnull Connection connection, long start) {
+        long acquired = System.nanoTime();
+        acquireCount.increment();
+        acquireNanos.add(acquired - start);
+        acquireHistogram.record(acquired - start);
+        return ConnectionCloseHandler.proxy(connection, () -> {
+            usageCount.increment();
+            usageNanos.add(System.nanoTime() - acquired);
+        });
+    }
+
+    @Override
+    public void close() {
+        DataSourcePoolUtils.closeQuietly(getTargetDataSource());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.metrics.LatencyHistogram;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+
+
+/**
+ * Decorator that wraps the datasource with a metered datasource, unless {@code metrics.enabled} is false
+ * <p>
+ * It is applied outside the replica routing and the virtual thread gate, so that the acquisition time includes the waits of them
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.MeteredDataSource
+ */
+public class MeteredDataSourceDecorator implements DataSourceDecorator {
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 200;
+
+    private final Environment environment;
+
+    public MeteredDataSourceDecorator(@Nonnull Environment environment) {
+        this.environment = environment;
+    }
+
+    @Nonnull
+    @Override
+    public DataSource decorate(@Nonnull DataSourceDescriptor descriptor, @Nonnull DataSource dataSource) {
+        DataSourceFeatureProperties.Metrics metrics = DataSourceFeatureProperties.bind(environment, descriptor).getMetrics();
+        if (BooleanUtils.isFalse(metrics.getEnabled())) {
+            return dataSource;
+        }
+        Duration window = ObjectUtils.defaultIfNull(metrics.getHistogramWindow(), Duration.ofMinutes(1L));
+        int buffers = ObjectUtils.defaultIfNull(metrics.getHistogramBuffers(), 3);
+        return new MeteredDataSource(descriptor.getName(), dataSource, new LatencyHistogram(window, buffers));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.Assert;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+
+/**
+ * Gate datasource that admits the borrowers of the pool by a fair semaphore, sized to the pool
+ * <p>
+ * The pools guarded by {@code synchronized} sections pin the carrier threads when the virtual threads wait inside them.
+ * Since there are never more borrowers than connections behind the gate, the virtual threads wait on the semaphore, which unmounts them, instead of inside the pool.
+ * The threads holding the permits are marked to the pinning monitor, if present, which attributes the pinned events to this gate
+ *
+ * @author David Hsing
+ */
+@Getter
+public class VirtualThreadGateDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final String name;
+    private final int permitCount;
+    private final long acquireTimeoutNanos;
+    private final Semaphore permits;
+
+    @Getter(value = AccessLevel.NONE)
+    private final VirtualThreadPinningMonitor pinningMonitor;
+
+    public VirtualThreadGateDataSource(@Nonnull String name, @Nonnull DataSource dataSource, int permitCount, @Nonnull Duration acquireTimeout) {
+        this(name, dataSource, permitCount, acquireTimeout, null);
+    }
+
+    public VirtualThreadGateDataSource(@Nonnull String name, @Nonnull DataSource dataSource, int permitCount, @Nonnull Duration acquireTimeout, @Nullable VirtualThreadPinningMonitor pinningMonitor) {
+        super(dataSource);
+        Assert.isTrue(permitCount > 0, "Permit count must be positive");
+        this.name = name;
+        this.permitCount = permitCount;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.permits = new Semaphore(permitCount, true);
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection() throws SQLException {
+        Runnable release = acquirePermit();
+        try {
+            return ConnectionCloseHandler.proxy(obtainTargetDataSource().getConnection(), release);
+        } catch (SQLException | RuntimeException ex) {
+            release.run();
+            throw ex;
+        }
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection(String username, String password) throws SQLException {
+        Runnable release = acquirePermit();
+        try {
+            return ConnectionCloseHandler.proxy(obtainTargetDataSource().getConnection(username, password), release);
+        } catch (SQLException | RuntimeException ex) {
+            release.run();
+            throw ex;
+        }
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    @Nonnull
+    private Runnable acquirePermit() throws SQLException {
+        try {
+            if (permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                VirtualThreadPinningMonitor.Hold hold = (pinningMonitor == null) ? null : pinningMonitor.enter(name);
+                if (hold == null) {
+                    return permits::release;
+                }
+                return () -> {
+                    hold.exit();
+                    permits.release();
+                };
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Gate of datasource '" + name + "' is interrupted", ex);
+        }
+        throw new SQLTransientConnectionException("Gate of datasource '" + name + "' timed out after " + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + " ms");
+    }
+
+    @Override
+    public void close() {
+        DataSourcePoolUtils.closeQuietly(getTargetDataSource());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+
+
+/**
+ * Decorator that wraps the pools guarded by {@code synchronized} sections with a gate, in virtual thread mode
+ * <p>
+ * It is applied to the writer pool directly, before any other decorator. The gated pools are c3p0, dbcp2, druid and tomcat,
+ * the gate is sized to the max size of the pool, unless {@code virtual-thread-gate.permits} is present
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.VirtualThreadGateDataSource
+ */
+public class VirtualThreadGateDecorator implements DataSourceDecorator {
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE;
+    private static final Set<DataSourcePoolType> GATED_POOL_TYPES = EnumSet.of(DataSourcePoolType.C3P0, DataSourcePoolType.DBCP2, DataSourcePoolType.DRUID, DataSourcePoolType.TOMCAT);
+
+    private final Environment environment;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+
+    public VirtualThreadGateDecorator(@Nonnull Environment environment, @Nullable VirtualThreadPinningMonitor pinningMonitor) {
+        this.environment = environment;
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    @Nonnull
+    @Override
+    public DataSource decorate(@Nonnull DataSourceDescriptor descriptor, @Nonnull DataSource dataSource) {
+        DataSourceFeatureProperties.VirtualThreadGate properties = DataSourceFeatureProperties.bind(environment, descriptor).getVirtualThreadGate();
+        DataSourcePoolType poolType = DataSourcePoolUtils.detectPoolType(dataSource.getClass());
+        if (BooleanUtils.isFalse(properties.getEnabled()) || poolType == null || !GATED_POOL_TYPES.contains(poolType)) {
+            return dataSource;
+        }
+        Integer permits = ObjectUtils.defaultIfNull(properties.getPermits(), DataSourcePoolUtils.getMaxPoolSize(dataSource));
+        if (permits == null || permits <= 0) {
+            return dataSource;
+        }
+        if (pinningMonitor != null) {
+            pinningMonitor.register(descriptor.getName());
+        }
+        return new VirtualThreadGateDataSource(descriptor.getName(), dataSource, permits, ObjectUtils.defaultIfNull(properties.getAcquireTimeout(), Duration.ofSeconds(30L)), pinningMonitor);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.decorator;
+
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Monitor that counts the pinned virtual threads inside the gated pools, by streaming the {@code jdk.VirtualThreadPinned} events of JFR
+ * <p>
+ * The gates mark the threads holding their permits, and an event is attributed to the datasource whose gate was held by the pinned thread when it pinned.
+ * Since the events are streamed asynchronously, the released marks are kept for {@code RETENTION} before purging
+ *
+ * @author David Hsing
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";    // $NON-NLS-1$
+    private static final long RETENTION = Duration.ofSeconds(30L).toMillis();
+
+    private final Duration threshold;
+    private final Map<String, LongAdder> pinnedCounts = new ConcurrentHashMap<>();
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Nonnull Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Registers the gate of the specified datasource
+     *
+     * @param name the name of the datasource
+     */
+    public void register(@Nonnull String name) {
+        pinnedCounts.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Marks the current thread as holding the gate of the specified datasource
+     *
+     * @param name the name of the datasource
+     *
+     * @return the mark to release when the permit is released, or {@code null} if the events are not streamed
+     */
+    @Nullable
+    @SuppressWarnings("deprecation")
+    public Hold enter(@Nonnull String name) {
+        if (stream == null) {
+            return null;
+        }
+        Hold hold = new Hold(name, System.currentTimeMillis());
+        holds.put(Thread.currentThread().getId(), hold);
+        return hold;
+    }
+
+    public long getPinnedCount(@Nonnull String name) {
+        LongAdder count = pinnedCounts.get(name);
+        return (count == null) ? 0L : count.sum();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::onPinned);
+            stream.onFlush(this::purge);
+            stream.setReuse(true);
+            stream.startAsync();
+        } catch (Exception ex) {
+            stream = null;
+            if (log.isWarnEnabled()) {
+                log.warn("Failed to stream the pinned virtual thread events", ex);
+            }
+        }
+    }
+
+    private void onPinned(@Nonnull RecordedEvent event) {
+        RecordedThread thread = event.getThread();
+        Hold hold = (thread == null) ? null : holds.get(thread.getJavaThreadId());
+        if (hold == null || event.getEndTime().toEpochMilli() < hold.enteredAt) {
+            return;
+        }
+        long exitedAt = hold.exitedAt;
+        if (exitedAt > 0L && event.getStartTime().toEpochMilli() > exitedAt) {
+            return;
+        }
+        LongAdder count = pinnedCounts.get(hold.name);
+        if (count != null) {
+            count.increment();
+        }
+    }
+
+    private void purge() {
+        long expiry = System.currentTimeMillis() - RETENTION;
+        holds.values().removeIf(hold -> hold.exitedAt > 0L && hold.exitedAt < expiry);
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+
+    /**
+     * Entry of {@code com.yookue.springstarter.multipledatasource.decorator.VirtualThreadPinningMonitor.Hold}
+     *
+     * @author David Hsing
+     */
+    public static final class Hold {
+        private final String name;
+        private final long enteredAt;
+        private volatile long exitedAt;
+
+        private Hold(@Nonnull String name, long enteredAt) {
+            this.name = name;
+            this.enteredAt = enteredAt;
+        }
+
+        /**
+         * Releases the mark, which is still kept for the events streamed later
+         */
+        public void exit() {
+            exitedAt = System.currentTimeMillis();
+        }
+    }
+}
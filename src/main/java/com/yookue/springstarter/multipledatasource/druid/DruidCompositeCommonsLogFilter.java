@@ -17,18 +17,28 @@
 package com.yookue.springstarter.multipledatasource.druid;
 
 
+import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import com.alibaba.druid.filter.logging.CommonsLogFilter;
+import com.alibaba.druid.proxy.jdbc.PreparedStatementProxy;
+import com.alibaba.druid.proxy.jdbc.ResultSetProxy;
+import com.alibaba.druid.proxy.jdbc.StatementProxy;
 import com.alibaba.druid.sql.SQLUtils;
 import com.yookue.commonplexus.javaseutil.util.BeautifulFormatWraps;
+import lombok.Getter;
 
 
 /**
  * Druid filter for commons-log
+ * <p>
+ * The statement logs are sampled and formatted asynchronously if necessary, see {@link com.yookue.springstarter.multipledatasource.druid.DruidStatementLogDispatcher}
  *
  * @author David Hsing
  */
-public class DruidCompositeCommonsLogFilter extends CommonsLogFilter {
+public class DruidCompositeCommonsLogFilter extends CommonsLogFilter implements AutoCloseable {
+    @Getter
+    private final DruidStatementLogDispatcher statementDispatcher = new DruidStatementLogDispatcher(this, this::statementLog);
+
     public DruidCompositeCommonsLogFilter() {
         super.setStatementSqlFormatOption(new SQLUtils.FormatOption(false, false));
     }
@@ -38,4 +48,38 @@ public class DruidCompositeCommonsLogFilter extends CommonsLogFilter {
         message = BeautifulFormatWraps.combine2Singleton(message);
         super.statementLog(message);
     }
+
+    @Override
+    protected void statementExecuteAfter(@Nonnull StatementProxy statement, @Nullable String sql, boolean firstResult) {
+        if (statementDispatcher.dispatch(statement, sql, super.isStatementExecuteAfterLogEnabled())) {
+            super.statementExecuteAfter(statement, sql, firstResult);
+        }
+    }
+
+    @Override
+    protected void statementExecuteQueryAfter(@Nonnull StatementProxy statement, @Nullable String sql, @Nullable ResultSetProxy resultSet) {
+        if (statementDispatcher.dispatch(statement, sql, super.isStatementExecuteQueryAfterLogEnabled())) {
+            super.statementExecuteQueryAfter(statement, sql, resultSet);
+        }
+    }
+
+    @Override
+    protected void statementExecuteUpdateAfter(@Nonnull StatementProxy statement, @Nullable String sql, int updateCount) {
+        if (statementDispatcher.dispatch(statement, sql, super.isStatementExecuteUpdateAfterLogEnabled())) {
+            super.statementExecuteUpdateAfter(statement, sql, updateCount);
+        }
+    }
+
+    @Override
+    protected void statementExecuteBatchAfter(@Nonnull StatementProxy statement, @Nullable int[] result) {
+        String sql = (statement instanceof PreparedStatementProxy prepared) ? prepared.getSql() : statement.getBatchSql();
+        if (statementDispatcher.dispatch(statement, sql, super.isStatementExecuteBatchAfterLogEnabled())) {
+            super.statementExecuteBatchAfter(statement, result);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        statementDispatcher.close();
+    }
 }
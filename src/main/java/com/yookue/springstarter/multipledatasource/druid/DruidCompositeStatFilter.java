@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.druid;
+
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.ReflectionUtils;
+import com.alibaba.druid.filter.stat.StatFilter;
+import com.alibaba.druid.proxy.jdbc.DataSourceProxy;
+import com.alibaba.druid.stat.JdbcDataSourceStat;
+import com.alibaba.druid.stat.JdbcSqlStat;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Druid filter for stat, with the rolling windows and the memory cap of the sql statistics
+ * <p>
+ * The sql statistics of druid are accumulated until reset. With {@code window.enabled}, the statistics of each datasource are collected and reset
+ * every {@code window.duration}, and the latest {@code window.count} windows are kept, with at most {@code window.max-entries} statements each.
+ * The statements that were not executed in a window are evicted by druid on reset, and {@code max-sql-size} caps the statements being tracked.
+ * Every {@code trim-interval}, the statements beyond {@code max-sql-size} are evicted by significance, the least total execution time first,
+ * while druid keeps a quarter more as a backstop, which evicts by insertion order only
+ * Note that the stat view servlet shows the current window only, when the windows are enabled
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.druid.DruidSqlStatWindow
+ */
+@Slf4j
+public class DruidCompositeStatFilter extends StatFilter implements AutoCloseable {
+    private static final Field SQL_STAT_MAP = findStatField("sqlStatMap", LinkedHashMap.class);    // $NON-NLS-1$
+    private static final Field SQL_STAT_LOCK = findStatField("lock", ReadWriteLock.class);    // $NON-NLS-1$
+
+    @Getter
+    @Setter
+    private Integer maxSqlSize;
+
+    @Getter
+    @Setter
+    private Duration trimInterval = Duration.ofSeconds(10L);
+
+    @Getter
+    private final Windowing window = new Windowing();
+
+    private final Map<String, WindowedStat> windowedStats = new ConcurrentHashMap<>();
+    private final Map<String, JdbcDataSourceStat> trimmedStats = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+    private boolean windowsStarted;
+    private boolean trimmerStarted;
+
+    @Override
+    public void init(@Nonnull DataSourceProxy dataSource) {
+        super.init(dataSource);
+        JdbcDataSourceStat stat = dataSource.getDataSourceStat();
+        if (stat == null) {
+            return;
+        }
+        if (maxSqlSize != null && maxSqlSize > 0) {
+            if (SQL_STAT_MAP != null && SQL_STAT_LOCK != null) {
+                stat.setMaxSqlSize(maxSqlSize + Math.max(maxSqlSize / 4, 16));
+                trimmedStats.put(dataSource.getName(), stat);
+                startTrimmer();
+            } else {
+                stat.setMaxSqlSize(maxSqlSize);
+            }
+        }
+        if (Boolean.TRUE.equals(window.getEnabled())) {
+            windowedStats.computeIfAbsent(dataSource.getName(), name -> new WindowedStat(stat));
+            startWindows();
+        }
+    }
+
+    @Nonnull
+    private synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            CustomizableThreadFactory factory = new CustomizableThreadFactory("multiple-datasource-druid-stat-");    // $NON-NLS-1$
+            factory.setDaemon(true);
+            scheduler = Executors.newSingleThreadScheduledExecutor(factory);
+        }
+        return scheduler;
+    }
+
+    private synchronized void startWindows() {
+        if (windowsStarted) {
+            return;
+        }
+        windowsStarted = true;
+        long interval = Math.max(((window.getDuration() == null) ? Duration.ofMinutes(1L) : window.getDuration()).toMillis(), 1000L);
+        getScheduler().scheduleAtFixedRate(this::rotate, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void startTrimmer() {
+        if (trimmerStarted) {
+            return;
+        }
+        trimmerStarted = true;
+        long interval = Math.max(((trimInterval == null) ? Duration.ofSeconds(10L) : trimInterval).toMillis(), 1000L);
+        getScheduler().scheduleWithFixedDelay(this::trim, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void trim() {
+        trimmedStats.forEach((name, stat) -> {
+            try {
+                trim(stat, maxSqlSize);
+            } catch (RuntimeException ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Failed to trim sql stats of druid datasource '{}'", name, ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Evicts the least significant statements of the specified stat, until at most {@code limit} statements are left
+     * <p>
+     * The statements still running are never evicted, the same as druid
+     */
+    @SuppressWarnings("unchecked")
+    private static void trim(@Nonnull JdbcDataSourceStat stat, int limit) {
+        ReadWriteLock lock = (ReadWriteLock) ReflectionUtils.getField(SQL_STAT_LOCK, stat);
+        Map<String, JdbcSqlStat> sqlStats = (LinkedHashMap<String, JdbcSqlStat>) ReflectionUtils.getField(SQL_STAT_MAP, stat);
+        if (lock == null || sqlStats == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int excess = sqlStats.size() - limit;
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<String, JdbcSqlStat>> candidates = new ArrayList<>(sqlStats.size());
+            for (Map.Entry<String, JdbcSqlStat> entry : sqlStats.entrySet()) {
+                if (entry.getValue().getRunningCount() <= 0L) {
+                    candidates.add(entry);
+                }
+            }
+            candidates.sort(Comparator.comparingLong(entry -> entry.getValue().getExecuteMillisTotal()));
+            for (int i = 0; i < excess && i < candidates.size(); i++) {
+                JdbcSqlStat evicted = sqlStats.remove(candidates.get(i).getKey());
+                if (evicted != null) {
+                    evicted.setRemoved(true);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Nullable
+    private static Field findStatField(@Nonnull String name, @Nonnull Class<?> type) {
+        Field field = ReflectionUtils.findField(JdbcDataSourceStat.class, name);
+        if (field == null || !type.isAssignableFrom(field.getType())) {
+            if (log.isWarnEnabled()) {
+                log.warn("Failed to locate '{}' of druid sql stats, max-sql-size falls back to druid eviction", name);
+            }
+            return null;
+        }
+        try {
+            ReflectionUtils.makeAccessible(field);
+            return field;
+        } catch (RuntimeException ex) {
+            if (log.isWarnEnabled()) {
+                log.warn("Failed to access '{}' of druid sql stats, max-sql-size falls back to druid eviction", name, ex);
+            }
+            return null;
+        }
+    }
+
+    private void rotate() {
+        int count = Math.max((window.getCount() == null) ? 5 : window.getCount(), 1);
+        int maxEntries = (window.getMaxEntries() == null) ? 100 : window.getMaxEntries();
+        windowedStats.forEach((name, windowed) -> {
+            try {
+                windowed.rotate(count, maxEntries);
+            } catch (RuntimeException ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Failed to rotate sql stat window of druid datasource '{}'", name, ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the completed windows of the specified datasource, from the oldest to the latest
+     *
+     * @param dataSourceName the name of the druid datasource
+     *
+     * @return the completed windows of the specified datasource
+     */
+    @Nonnull
+    public List<DruidSqlStatWindow> getWindows(@Nonnull String dataSourceName) {
+        WindowedStat windowed = windowedStats.get(dataSourceName);
+        return (windowed == null) ? Collections.emptyList() : windowed.getWindows();
+    }
+
+    /**
+     * Returns the latest completed window of the specified datasource
+     *
+     * @param dataSourceName the name of the druid datasource
+     *
+     * @return the latest completed window of the specified datasource, or {@code null} if absent
+     */
+    @Nullable
+    public DruidSqlStatWindow getLatestWindow(@Nonnull String dataSourceName) {
+        WindowedStat windowed = windowedStats.get(dataSourceName);
+        return (windowed == null) ? null : windowed.getLatest();
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.druid.DruidCompositeStatFilter.Windowing}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class Windowing implements Serializable {
+        private Boolean enabled = false;
+        private Duration duration = Duration.ofMinutes(1L);
+        private Integer count = 5;
+        private Integer maxEntries = 100;
+    }
+
+
+    /**
+     * Entry of {@code com.yookue.springstarter.multipledatasource.druid.DruidCompositeStatFilter.WindowedStat}
+     *
+     * @author David Hsing
+     */
+    private static class WindowedStat {
+        private final JdbcDataSourceStat stat;
+        private final Deque<DruidSqlStatWindow> windows = new ArrayDeque<>();
+        private long startMillis = System.currentTimeMillis();
+
+        private WindowedStat(@Nonnull JdbcDataSourceStat stat) {
+            this.stat = stat;
+        }
+
+        private synchronized void rotate(int count, int maxEntries) {
+            long endMillis = System.currentTimeMillis();
+            windows.addLast(new DruidSqlStatWindow(startMillis, endMillis, stat.getSqlStatMapAndReset(), maxEntries));
+            while (windows.size() > count) {
+                windows.removeFirst();
+            }
+            startMillis = endMillis;
+        }
+
+        @Nonnull
+        private synchronized List<DruidSqlStatWindow> getWindows() {
+            return List.copyOf(windows);
+        }
+
+        @Nullable
+        private synchronized DruidSqlStatWindow getLatest() {
+            return windows.peekLast();
+        }
+    }
+}
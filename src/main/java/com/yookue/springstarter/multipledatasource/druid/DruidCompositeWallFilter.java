@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.druid;
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ReflectionUtils;
+import com.alibaba.druid.proxy.jdbc.DataSourceProxy;
+import com.alibaba.druid.util.ConcurrentLruCache;
+import com.alibaba.druid.wall.WallConfig;
+import com.alibaba.druid.wall.WallFilter;
+import com.alibaba.druid.wall.WallProvider;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Druid filter for wall, with the sizing of the parse result caches and the warm-up of the white list
+ * <p>
+ * The white list and the black list of the wall provider are resized to {@code white-list-capacity} and {@code black-list-capacity} if present.
+ * With {@code warm-up.enabled}, the statements of {@code warm-up.corpus-locations} and {@code warm-up.capture-file} are checked by a daemon thread
+ * once the provider is initialized, so the first calls after deploy hit the white list instead of parsing.
+ * The white list is written to {@code warm-up.capture-file} on close, as the corpus of the next run
+ * <p>
+ * The corpus files contain one statement per line, with {@code \n}, {@code \r} and {@code \\} escaped, the lines starting with {@code --} are ignored
+ *
+ * @author David Hsing
+ */
+@Getter
+@Setter
+@Slf4j
+public class DruidCompositeWallFilter extends WallFilter implements AutoCloseable {
+    private static final String COMMENT_PREFIX = "--";    // $NON-NLS-1$
+
+    private Integer whiteListCapacity;
+    private Integer blackListCapacity;
+    private final WarmUp warmUp = new WarmUp();
+
+    @Nullable
+    @Override
+    protected WallProvider initWallProvider(@Nonnull DataSourceProxy dataSource, @Nullable String dbType, @Nonnull WallConfig config) {
+        WallProvider result = super.initWallProvider(dataSource, dbType, config);
+        if (result == null) {
+            return null;
+        }
+        resizeList(result, "whiteList", whiteListCapacity);    // $NON-NLS-1$
+        resizeList(result, "blackList", blackListCapacity);    // $NON-NLS-1$
+        if (Boolean.TRUE.equals(warmUp.getEnabled()) && result.isWhiteListEnable()) {
+            Thread thread = new Thread(() -> warmUp(result), "multiple-datasource-druid-wall-warm-up");    // $NON-NLS-1$
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return result;
+    }
+
+    private static void resizeList(@Nonnull WallProvider provider, @Nonnull String fieldName, @Nullable Integer capacity) {
+        if (capacity == null || capacity <= 0) {
+            return;
+        }
+        Field field = ReflectionUtils.findField(WallProvider.class, fieldName, ConcurrentLruCache.class);
+        if (field == null) {
+            if (log.isWarnEnabled()) {
+                log.warn("Failed to resize '{}' of druid wall provider, the field is absent", fieldName);
+            }
+            return;
+        }
+        try {
+            ReflectionUtils.makeAccessible(field);
+            ReflectionUtils.setField(field, provider, new ConcurrentLruCache<>(capacity));
+        } catch (RuntimeException ex) {
+            if (log.isWarnEnabled()) {
+                log.warn("Failed to resize '{}' of druid wall provider", fieldName, ex);
+            }
+        }
+    }
+
+    private void warmUp(@Nonnull WallProvider provider) {
+        Set<String> statements = new LinkedHashSet<>();
+        DefaultResourceLoader loader = new DefaultResourceLoader();
+        for (String location : warmUp.getCorpusLocations()) {
+            if (StringUtils.isNotBlank(location)) {
+                statements.addAll(readCorpus(loader.getResource(location)));
+            }
+        }
+        if (StringUtils.isNotBlank(warmUp.getCaptureFile())) {
+            statements.addAll(readCorpus(loader.getResource("file:" + warmUp.getCaptureFile())));    // $NON-NLS-1$
+        }
+        long start = System.currentTimeMillis();
+        int checked = 0;
+        for (String statement : statements) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                provider.check(statement);
+                checked++;
+            } catch (RuntimeException ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Failed to warm up druid wall with statement '{}'", statement, ex);
+                }
+            }
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Warmed up druid wall with {} statements in {} ms", checked, System.currentTimeMillis() - start);
+        }
+    }
+
+    @Nonnull
+    private static List<String> readCorpus(@Nonnull Resource resource) {
+        List<String> result = new ArrayList<>();
+        if (!resource.exists()) {
+            return result;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (StringUtils.isNotBlank(line) && !StringUtils.startsWith(line.trim(), COMMENT_PREFIX)) {
+                    result.add(unescape(line));
+                }
+            }
+        } catch (IOException ex) {
+            if (log.isWarnEnabled()) {
+                log.warn("Failed to read druid wall corpus '{}'", resource, ex);
+            }
+        }
+        return result;
+    }
+
+    @Nonnull
+    private static String escape(@Nonnull String statement) {
+        return statement.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");    // $NON-NLS-1$ // $NON-NLS-2$ // $NON-NLS-3$ // $NON-NLS-4$ // $NON-NLS-5$ // $NON-NLS-6$
+    }
+
+    @Nonnull
+    private static String unescape(@Nonnull String line) {
+        if (line.indexOf('\\') < 0) {
+            return line;
+        }
+        StringBuilder builder = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (ch == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                builder.append((next == 'n') ? '\n' : (next == 'r') ? '\r' : next);
+            } else {
+                builder.append(ch);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void close() {
+        WallProvider provider = super.getProvider();
+        if (provider == null || !Boolean.TRUE.equals(warmUp.getEnabled()) || StringUtils.isBlank(warmUp.getCaptureFile())) {
+            return;
+        }
+        Path path = Paths.get(warmUp.getCaptureFile());
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                for (String statement : provider.getWhiteList()) {
+                    writer.write(escape(statement));
+                    writer.newLine();
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            if (log.isWarnEnabled()) {
+                log.warn("Failed to capture druid wall white list to '{}'", path, ex);
+            }
+        }
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.druid.DruidCompositeWallFilter.WarmUp}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class WarmUp implements Serializable {
+        private Boolean enabled = false;
+        private List<String> corpusLocations = new ArrayList<>();
+        private String captureFile;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.druid;
+
+
+import java.io.IOException;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import com.alibaba.druid.support.jakarta.WebStatFilter;
+
+
+/**
+ * Druid filter for web stat, with the exclusions precompiled
+ * <p>
+ * The excluded requests, such as the static assets, are passed to the chain before the web stat filter wraps the response,
+ * and matched by a {@link com.yookue.springstarter.multipledatasource.druid.WebStatExclusionMatcher} instead of the pattern loop of druid
+ *
+ * @author David Hsing
+ */
+public class DruidCompositeWebStatFilter extends WebStatFilter {
+    private volatile WebStatExclusionMatcher exclusionMatcher = new WebStatExclusionMatcher(null);
+
+    @Override
+    public void init(@Nonnull FilterConfig config) throws ServletException {
+        super.init(config);
+        exclusionMatcher = new WebStatExclusionMatcher(config.getInitParameter(PARAM_NAME_EXCLUSIONS));
+    }
+
+    @Override
+    public void doFilter(@Nonnull ServletRequest request, @Nonnull ServletResponse response, @Nonnull FilterChain chain) throws IOException, ServletException {
+        if (request instanceof HttpServletRequest httpRequest && isExclusion(super.getRequestURI(httpRequest))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        super.doFilter(request, response, chain);
+    }
+
+    @Override
+    public boolean isExclusion(@Nullable String requestURI) {
+        if (requestURI == null) {
+            return false;
+        }
+        String uri = requestURI;
+        String contextPath = super.getContextPath();
+        if (contextPath != null && uri.startsWith(contextPath)) {
+            uri = uri.substring(contextPath.length());
+            if (!uri.startsWith("/")) {    // $NON-NLS-1$
+                uri = "/" + uri;    // $NON-NLS-1$
+            }
+        }
+        return exclusionMatcher.matches(uri);
+    }
+}
@@ -18,12 +18,14 @@ package com.yookue.springstarter.multipledatasource.druid;
 
 
 import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
 import com.alibaba.druid.filter.config.ConfigFilter;
 import com.alibaba.druid.filter.encoding.EncodingConvertFilter;
 import com.alibaba.druid.filter.logging.CommonsLogFilter;
@@ -54,6 +56,7 @@ public class DruidFilterConfiguration {
     private static final String FILTER_LOG4J_PREFIX = FILTER_PREFIX + ".log4j";    // $NON-NLS-1$
     private static final String FILTER_LOG4J2_PREFIX = FILTER_PREFIX + ".log4j2";    // $NON-NLS-1$
     private static final String FILTER_COMMONS_LOG_PREFIX = FILTER_PREFIX + ".commons-log";    // $NON-NLS-1$
+    private static final String FILTER_SQL_FORMAT_CACHE_PREFIX = FILTER_PREFIX + ".sql-format-cache";    // $NON-NLS-1$
     private static final String FILTER_WALL_PREFIX = FILTER_PREFIX + ".wall";    // $NON-NLS-1$
     private static final String FILTER_WALL_CONFIG_PREFIX = FILTER_WALL_PREFIX + ".config";    // $NON-NLS-1$
 
@@ -64,6 +67,7 @@ public class DruidFilterConfiguration {
     public static final String LOG4J_FILTER = "druidLog4jFilter";    // $NON-NLS-1$
     public static final String LOG4J2_FILTER = "druidLog4j2Filter";    // $NON-NLS-1$
     public static final String COMMONS_LOG_FILTER = "druidCommonsLogFilter";    // $NON-NLS-1$
+    public static final String SQL_FORMAT_CACHE = "druidSqlFormatCache";    // $NON-NLS-1$
     public static final String WALL_CONFIG = "druidWallConfig";    // $NON-NLS-1$
     public static final String WALL_FILTER = "druidWallFilter";    // $NON-NLS-1$
 
@@ -78,9 +82,9 @@ public class DruidFilterConfiguration {
     @Bean(name = STAT_FILTER)
     @ConfigurationProperties(FILTER_STAT_PREFIX)
     @ConditionalOnProperty(prefix = FILTER_STAT_PREFIX, name = "enabled")
-    @ConditionalOnMissingBean
-    public StatFilter statFilter() {
-        return new StatFilter();
+    @ConditionalOnMissingBean(value = StatFilter.class)
+    public DruidCompositeStatFilter statFilter() {
+        return new DruidCompositeStatFilter();
     }
 
     @Bean(name = ENCODING_CONVERT_FILTER)
@@ -91,40 +95,55 @@ public class DruidFilterConfiguration {
         return new EncodingConvertFilter();
     }
 
+    @Bean(name = SQL_FORMAT_CACHE)
+    @ConditionalOnProperty(prefix = FILTER_SQL_FORMAT_CACHE_PREFIX, name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean(name = SQL_FORMAT_CACHE)
+    public DruidSqlFormatCache sqlFormatCache(@Nonnull Environment environment) {
+        return new DruidSqlFormatCache(environment.getProperty(FILTER_SQL_FORMAT_CACHE_PREFIX + ".capacity", Integer.class, 512));    // $NON-NLS-1$
+    }
+
     @Bean(name = SLF4J_FILTER)
     @ConfigurationProperties(FILTER_SLF4J_PREFIX)
     @ConditionalOnProperty(prefix = FILTER_SLF4J_PREFIX, name = "enabled")
     @ConditionalOnClass(name = "org.slf4j.Logger")
-    @ConditionalOnMissingBean
-    public Slf4jLogFilter slf4jLogFilter() {
-        return new DruidCompositeSlf4jFilter();
+    @ConditionalOnMissingBean(value = Slf4jLogFilter.class)
+    public DruidCompositeSlf4jFilter slf4jLogFilter(@Nonnull ObjectProvider<DruidSqlFormatCache> formatCache) {
+        DruidCompositeSlf4jFilter filter = new DruidCompositeSlf4jFilter();
+        filter.getStatementDispatcher().setFormatCache(formatCache.getIfAvailable());
+        return filter;
     }
 
     @Bean(name = LOG4J_FILTER)
     @ConfigurationProperties(FILTER_LOG4J_PREFIX)
     @ConditionalOnProperty(prefix = FILTER_LOG4J_PREFIX, name = "enabled")
     @ConditionalOnClass(name = "org.apache.log4j.Logger")
-    @ConditionalOnMissingBean
-    public Log4jFilter log4jFilter() {
-        return new DruidCompositeLog4jFilter();
+    @ConditionalOnMissingBean(value = Log4jFilter.class)
+    public DruidCompositeLog4jFilter log4jFilter(@Nonnull ObjectProvider<DruidSqlFormatCache> formatCache) {
+        DruidCompositeLog4jFilter filter = new DruidCompositeLog4jFilter();
+        filter.getStatementDispatcher().setFormatCache(formatCache.getIfAvailable());
+        return filter;
     }
 
     @Bean(name = LOG4J2_FILTER)
     @ConfigurationProperties(FILTER_LOG4J2_PREFIX)
     @ConditionalOnProperty(prefix = FILTER_LOG4J2_PREFIX, name = "enabled")
     @ConditionalOnClass(name = "org.apache.logging.log4j.Logger")
-    @ConditionalOnMissingBean
-    public Log4j2Filter log4j2Filter() {
-        return new DruidCompositeLog4j2Filter();
+    @ConditionalOnMissingBean(value = Log4j2Filter.class)
+    public DruidCompositeLog4j2Filter log4j2Filter(@Nonnull ObjectProvider<DruidSqlFormatCache> formatCache) {
+        DruidCompositeLog4j2Filter filter = new DruidCompositeLog4j2Filter();
+        filter.getStatementDispatcher().setFormatCache(formatCache.getIfAvailable());
+        return filter;
     }
 
     @Bean(name = COMMONS_LOG_FILTER)
     @ConfigurationProperties(FILTER_COMMONS_LOG_PREFIX)
     @ConditionalOnProperty(prefix = FILTER_COMMONS_LOG_PREFIX, name = "enabled")
     @ConditionalOnClass(name = "org.apache.commons.logging.LogFactory")
-    @ConditionalOnMissingBean
-    public CommonsLogFilter commonsLogFilter() {
-        return new DruidCompositeCommonsLogFilter();
+    @ConditionalOnMissingBean(value = CommonsLogFilter.class)
+    public DruidCompositeCommonsLogFilter commonsLogFilter(@Nonnull ObjectProvider<DruidSqlFormatCache> formatCache) {
+        DruidCompositeCommonsLogFilter filter = new DruidCompositeCommonsLogFilter();
+        filter.getStatementDispatcher().setFormatCache(formatCache.getIfAvailable());
+        return filter;
     }
 
     @Bean(name = WALL_CONFIG)
@@ -139,9 +158,9 @@ public class DruidFilterConfiguration {
     @ConfigurationProperties(FILTER_WALL_PREFIX)
     @ConditionalOnProperty(prefix = FILTER_WALL_PREFIX, name = "enabled")
     @ConditionalOnBean(value = WallConfig.class)
-    @ConditionalOnMissingBean
-    public WallFilter wallFilter(@Nonnull WallConfig wallConfig) {
-        WallFilter filter = new WallFilter();
+    @ConditionalOnMissingBean(value = WallFilter.class)
+    public DruidCompositeWallFilter wallFilter(@Nonnull WallConfig wallConfig) {
+        DruidCompositeWallFilter filter = new DruidCompositeWallFilter();
         filter.setConfig(wallConfig);
         return filter;
     }
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.druid;
+
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.NClob;
+import java.sql.Time;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalAmount;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.util.Assert;
+import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.SQLUtils;
+import com.yookue.commonplexus.javaseutil.util.BeautifulFormatWraps;
+
+
+/**
+ * Bounded cache from the raw sql to its formatted single-line form, shared by the druid composite log filters
+ * <p>
+ * The cache is split into segments of access-ordered maps, each evicts its least recently used entry on overflow,
+ * so the lookups of different statements rarely contend. The sql is formatted with the placeholders kept,
+ * and the bind parameters are substituted into the cached form, so the repeated statements never run the druid sql parser
+ *
+ * @author David Hsing
+ */
+@SuppressWarnings("unused")
+public class DruidSqlFormatCache {
+    private static final int SEGMENTS = 16;
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");    // $NON-NLS-1$
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");    // $NON-NLS-1$
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");    // $NON-NLS-1$
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public DruidSqlFormatCache(int capacity) {
+        Assert.isTrue(capacity > 0, "Capacity must be positive");
+        int segmentCapacity = Math.max(capacity / SEGMENTS, 1);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Returns the formatted single-line form of the specified sql, with the parameters substituted
+     *
+     * @param sql the raw sql
+     * @param dbType the database type of the sql
+     * @param parameters the bind parameters
+     * @param option the format option of druid
+     *
+     * @return the formatted single-line form of the specified sql
+     */
+    @Nonnull
+    public String format(@Nonnull String sql, @Nullable String dbType, @Nullable List<Object> parameters, @Nullable SQLUtils.FormatOption option) {
+        String template = getTemplate(sql, dbType, option);
+        if (parameters == null || parameters.isEmpty()) {
+            return template;
+        }
+        String result = substitute(template, parameters);
+        return (result != null) ? result : BeautifulFormatWraps.combine2Singleton(SQLUtils.format(sql, DbType.of(dbType), parameters, option));
+    }
+
+    @Nonnull
+    private String getTemplate(@Nonnull String sql, @Nullable String dbType, @Nullable SQLUtils.FormatOption option) {
+        Segment segment = segments[(sql.hashCode() ^ (sql.hashCode() >>> 16)) & (SEGMENTS - 1)];
+        String template;
+        synchronized (segment) {
+            template = segment.get(sql);
+        }
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+        misses.increment();
+        try {
+            template = BeautifulFormatWraps.combine2Singleton(SQLUtils.format(sql, DbType.of(dbType), option));
+        } catch (RuntimeException ex) {
+            template = BeautifulFormatWraps.combine2Singleton(sql);
+        }
+        if (template == null) {
+            template = sql;
+        }
+        synchronized (segment) {
+            segment.put(sql, template);
+        }
+        return template;
+    }
+
+    @Nullable
+    private static String substitute(@Nonnull String template, @Nonnull List<Object> parameters) {
+        StringBuilder builder = new StringBuilder(template.length() + parameters.size() * 8);
+        int index = 0;
+        char quote = 0;
+        for (int i = 0; i < template.length(); i++) {
+            char ch = template.charAt(i);
+            if (quote != 0) {
+                if (ch == quote) {
+                    quote = 0;
+                }
+            } else if (ch == '\'' || ch == '"' || ch == '`') {
+                quote = ch;
+            } else if (ch == '?') {
+                if (index >= parameters.size()) {
+                    return null;
+                }
+                appendLiteral(builder, parameters.get(index++));
+                continue;
+            }
+            builder.append(ch);
+        }
+        return (index == parameters.size()) ? builder.toString() : null;
+    }
+
+    /**
+     * Appends the parameter as a literal, the same as {@code SQLASTOutputVisitor#printParameter} of druid
+     */
+    private static void appendLiteral(@Nonnull StringBuilder builder, @Nullable Object parameter) {
+        if (parameter == null) {
+            builder.append("NULL");    // $NON-NLS-1$
+        } else if (parameter instanceof Double value) {
+            builder.append(new BigDecimal(value).toPlainString());
+        } else if (parameter instanceof BigDecimal value) {
+            builder.append(value.toPlainString());
+        } else if (parameter instanceof Calendar value) {
+            appendQuoted(builder, format(TIMESTAMP_FORMATTER, value.getTimeInMillis()));
+        } else if (parameter instanceof LocalDateTime || parameter instanceof ZonedDateTime || parameter instanceof OffsetDateTime) {
+            appendQuoted(builder, TIMESTAMP_FORMATTER.format((TemporalAccessor) parameter));
+        } else if (parameter instanceof OffsetTime || parameter instanceof LocalTime || parameter instanceof LocalDate || parameter instanceof Instant || parameter instanceof TemporalAmount) {
+            appendQuoted(builder, parameter.toString());
+        } else if (parameter instanceof Number || parameter instanceof Boolean || parameter instanceof Temporal) {
+            builder.append(parameter);
+        } else if (parameter instanceof String value) {
+            appendQuoted(builder, value);
+        } else if (parameter instanceof java.sql.Date value) {
+            builder.append("DATE ");    // $NON-NLS-1$
+            appendQuoted(builder, format(DATE_FORMATTER, value.getTime()));
+        } else if (parameter instanceof Time value) {
+            builder.append("TIME ");    // $NON-NLS-1$
+            appendQuoted(builder, format(TIME_FORMATTER, value.getTime()));
+        } else if (parameter instanceof Date value) {
+            builder.append("TIMESTAMP ");    // $NON-NLS-1$
+            appendQuoted(builder, format(TIMESTAMP_FORMATTER, value.getTime()));
+        } else if (parameter instanceof InputStream || parameter instanceof Reader || parameter instanceof NClob || parameter instanceof Clob || parameter instanceof Blob) {
+            String type = (parameter instanceof InputStream) ? "InputStream" : (parameter instanceof Reader) ? "Reader" : (parameter instanceof NClob) ? "NClob" : (parameter instanceof Clob) ? "Clob" : "Blob";    // $NON-NLS-1$ // $NON-NLS-2$ // $NON-NLS-3$ // $NON-NLS-4$ // $NON-NLS-5$
+            builder.append("'<").append(type).append(">'");    // $NON-NLS-1$ // $NON-NLS-2$
+        } else if (parameter instanceof byte[] value) {
+            builder.append("x'").append(HexFormat.of().withUpperCase().formatHex(value)).append('\'');    // $NON-NLS-1$
+        } else {
+            appendQuoted(builder, (parameter instanceof Character) ? parameter.toString() : parameter.getClass().getName());
+        }
+    }
+
+    private static void appendQuoted(@Nonnull StringBuilder builder, @Nonnull String value) {
+        builder.append('\'').append(value.replace("'", "''")).append('\'');    // $NON-NLS-1$ // $NON-NLS-2$
+    }
+
+    @Nonnull
+    private static String format(@Nonnull DateTimeFormatter formatter, long millis) {
+        return formatter.format(Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        int result = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                result += segment.size();
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Entry of {@code com.yookue.springstarter.multipledatasource.druid.DruidSqlFormatCache.Segment}
+     *
+     * @author David Hsing
+     */
+    private class Segment extends LinkedHashMap<String, String> {
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75F, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.druid;
+
+
+import java.util.Comparator;
+import java.util.List;
+import jakarta.annotation.Nonnull;
+import com.alibaba.druid.stat.JdbcSqlStatValue;
+import lombok.Getter;
+
+
+/**
+ * Window of the sql statistics of a druid datasource
+ * <p>
+ * The totals cover all the statements executed in the window, while the entries keep the most significant ones only, by the total execution time
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.druid.DruidCompositeStatFilter
+ */
+@Getter
+public class DruidSqlStatWindow {
+    private final long startMillis;
+    private final long endMillis;
+    private final long executeCount;
+    private final long errorCount;
+    private final long executeMillisTotal;
+    private final long executeMillisMax;
+    private final int statementCount;
+    private final List<JdbcSqlStatValue> entries;
+
+    public DruidSqlStatWindow(long startMillis, long endMillis, @Nonnull List<JdbcSqlStatValue> values, int maxEntries) {
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        long count = 0L, errors = 0L, total = 0L, max = 0L;
+        for (JdbcSqlStatValue value : values) {
+            count += value.getExecuteCount();
+            errors += value.getExecuteErrorCount();
+            total += value.getExecuteMillisTotal();
+            max = Math.max(max, value.getExecuteMillisMax());
+        }
+        this.executeCount = count;
+        this.errorCount = errors;
+        this.executeMillisTotal = total;
+        this.executeMillisMax = max;
+        this.statementCount = values.size();
+        this.entries = values.stream().sorted(Comparator.comparingLong(JdbcSqlStatValue::getExecuteMillisTotal).reversed()).limit(Math.max(maxEntries, 0)).toList();
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.druid;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import com.alibaba.druid.DbType;
+import com.alibaba.druid.filter.logging.LogFilter;
+import com.alibaba.druid.proxy.jdbc.CallableStatementProxy;
+import com.alibaba.druid.proxy.jdbc.JdbcParameter;
+import com.alibaba.druid.proxy.jdbc.PreparedStatementProxy;
+import com.alibaba.druid.proxy.jdbc.StatementProxy;
+import com.alibaba.druid.sql.SQLUtils;
+import com.yookue.springstarter.multipledatasource.enumeration.StatementLogDropPolicy;
+import com.yookue.springstarter.multipledatasource.support.RingBuffer;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Dispatcher of the statement logs of the druid composite log filters, which samples the statements and formats them asynchronously if necessary
+ * <p>
+ * One in {@code sample-interval} statements is logged, and the statements over {@code slow-threshold} are always logged.
+ * In async mode, the raw sql and the bind parameters are offered to a lock-free {@link com.yookue.springstarter.multipledatasource.support.RingBuffer},
+ * and formatted by a daemon thread, so the executing thread never runs the sql parser or the appenders.
+ * When the buffer is full, the records are dropped or logged synchronously, according to {@code drop-policy}
+ *
+ * @author David Hsing
+ */
+@Slf4j
+public class DruidStatementLogDispatcher implements AutoCloseable {
+    private static final long DRAIN_INTERVAL = TimeUnit.MILLISECONDS.toNanos(50L);
+
+    @Getter
+    @Setter
+    private boolean async = false;
+    @Getter
+    @Setter
+    private int bufferSize = 1024;
+    @Getter
+    @Setter
+    private int sampleInterval = 1;
+    @Getter
+    @Setter
+    private Duration slowThreshold;
+    @Getter
+    @Setter
+    private StatementLogDropPolicy dropPolicy = StatementLogDropPolicy.DROP;
+
+    private final LogFilter filter;
+    private final Consumer<String> sink;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile RingBuffer<StatementLogRecord> buffer;
+    private volatile Thread drainer;
+    private volatile boolean running = true;
+    private volatile DruidSqlFormatCache formatCache;
+
+    public DruidStatementLogDispatcher(@Nonnull LogFilter filter, @Nonnull Consumer<String> sink) {
+        this.filter = filter;
+        this.sink = sink;
+    }
+
+    /**
+     * Dispatches the log of the executed statement
+     * <p>
+     * The same lines as druid are written, the executable sql if {@code statementExecutableSqlLogEnable} is true, then the elapsed time and the raw sql if enabled.
+     * Without async mode, the statement is routed through the format cache only if the executable sql is logged, otherwise druid logs the raw sql as usual
+     *
+     * @param statement the executed statement
+     * @param sql the executed sql
+     * @param elapsedLogEnabled whether the filter logs the elapsed time of this kind of statement
+     *
+     * @return whether the caller should log the statement synchronously, by the original path of druid
+     */
+    public boolean dispatch(@Nonnull StatementProxy statement, @Nullable String sql, boolean elapsedLogEnabled) {
+        boolean executable = filter.isStatementExecutableSqlLogEnable();
+        if (!(executable || elapsedLogEnabled) || !filter.isStatementLogEnabled()) {
+            return true;
+        }
+        statement.setLastExecuteTimeNano();
+        long elapsedNanos = statement.getLastExecuteTimeNano();
+        if (!isSampled(elapsedNanos)) {
+            return false;
+        }
+        boolean cached = executable && formatCache != null;
+        if (sql == null || (!async && !cached)) {
+            return true;
+        }
+        List<Object> parameters = executable ? captureParameters(statement) : Collections.emptyList();
+        StatementLogRecord record = new StatementLogRecord(statement.getConnectionProxy().getId(), statementId(statement), elapsedNanos, sql, statement.getConnectionProxy().getDirectDataSource().getDbType(), parameters, executable, elapsedLogEnabled);
+        if (async && (getBuffer().offer(record) || dropPolicy == StatementLogDropPolicy.DROP)) {
+            return false;
+        }
+        if (!cached) {
+            return true;
+        }
+        write(record);
+        return false;
+    }
+
+    private boolean isSampled(long elapsedNanos) {
+        if (slowThreshold != null && elapsedNanos >= slowThreshold.toNanos()) {
+            return true;
+        }
+        return sampleInterval <= 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0;
+    }
+
+    @Nonnull
+    private static String statementId(@Nonnull StatementProxy statement) {
+        if (statement instanceof CallableStatementProxy) {
+            return "cstmt-" + statement.getId();    // $NON-NLS-1$
+        }
+        return ((statement instanceof PreparedStatementProxy) ? "pstmt-" : "stmt-") + statement.getId();    // $NON-NLS-1$ // $NON-NLS-2$
+    }
+
+    @Nonnull
+    private static List<Object> captureParameters(@Nonnull StatementProxy statement) {
+        int size = statement.getParametersSize();
+        if (size <= 0) {
+            return Collections.emptyList();
+        }
+        List<Object> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            JdbcParameter parameter = statement.getParameter(i);
+            result.add((parameter == null) ? null : parameter.getValue());
+        }
+        return result;
+    }
+
+    @Nonnull
+    private RingBuffer<StatementLogRecord> getBuffer() {
+        RingBuffer<StatementLogRecord> result = buffer;
+        if (result == null) {
+            synchronized (this) {
+                if (buffer == null) {
+                    buffer = new RingBuffer<>(Math.max(bufferSize, 16));
+                }
+                result = buffer;
+            }
+        }
+        if (started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::drain, "multiple-datasource-druid-statement-log");    // $NON-NLS-1$
+            thread.setDaemon(true);
+            thread.start();
+            drainer = thread;
+        }
+        return result;
+    }
+
+    private void drain() {
+        while (running) {
+            StatementLogRecord record = buffer.poll();
+            if (record == null) {
+                LockSupport.parkNanos(DRAIN_INTERVAL);
+                continue;
+            }
+            write(record);
+        }
+        for (StatementLogRecord record = buffer.poll(); record != null; record = buffer.poll()) {
+            write(record);
+        }
+    }
+
+    private void write(@Nonnull StatementLogRecord record) {
+        try {
+            String prefix = "{conn-" + record.connectionId() + ", " + record.statementId() + "} executed. ";    // $NON-NLS-1$ // $NON-NLS-2$ // $NON-NLS-3$
+            if (record.executable()) {
+                sink.accept(prefix + format(record));
+            }
+            if (record.elapsed()) {
+                sink.accept(prefix + (record.elapsedNanos() / 1000000.0D) + " millis. " + record.sql());    // $NON-NLS-1$
+            }
+        } catch (RuntimeException ex) {
+            if (log.isDebugEnabled()) {
+                log.debug("Failed to write statement log", ex);
+            }
+        }
+    }
+
+    @Nonnull
+    private String format(@Nonnull StatementLogRecord record) {
+        if (record.parameters().isEmpty()) {
+            return record.sql();
+        }
+        DruidSqlFormatCache cache = formatCache;
+        try {
+            if (cache != null) {
+                return cache.format(record.sql(), record.dbType(), record.parameters(), filter.getStatementSqlFormatOption());
+            }
+            return SQLUtils.format(record.sql(), DbType.of(record.dbType()), record.parameters(), filter.getStatementSqlFormatOption());
+        } catch (RuntimeException ex) {
+            return record.sql() + " parameters: " + record.parameters();    // $NON-NLS-1$
+        }
+    }
+
+    /**
+     * Sets the cache of the formatted sql, with which the executable sql is formatted without the druid sql parser, on the executing thread as well
+     *
+     * @param formatCache the cache of the formatted sql
+     */
+    public void setFormatCache(@Nullable DruidSqlFormatCache formatCache) {
+        this.formatCache = formatCache;
+    }
+
+    /**
+     * Returns the count of the records dropped by the full buffer
+     *
+     * @return the count of the records dropped by the full buffer
+     */
+    public long getDropped() {
+        RingBuffer<StatementLogRecord> result = buffer;
+        return (result == null) ? 0L : result.getDropped();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        Thread thread = drainer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(1L));
+        }
+    }
+
+
+    /**
+     * Entry of {@code com.yookue.springstarter.multipledatasource.druid.DruidStatementLogDispatcher.StatementLogRecord}
+     *
+     * @author David Hsing
+     */
+    private record StatementLogRecord(long connectionId, @Nonnull String statementId, long elapsedNanos, @Nonnull String sql, @Nullable String dbType, @Nonnull List<Object> parameters, boolean executable, boolean elapsed) {
+    }
+}
@@ -48,7 +48,7 @@ public class DruidWebStatFilterConfiguration {
     @ConditionalOnMissingBean(value = WebStatFilter.class, parameterizedContainer = FilterRegistrationBean.class)
     public FilterRegistrationBean<WebStatFilter> webStatFilterRegistration(@Nonnull DruidStatProperties properties) {
         FilterRegistrationBean<WebStatFilter> result = new FilterRegistrationBean<>();
-        result.setFilter(new WebStatFilter());
+        result.setFilter(new DruidCompositeWebStatFilter());
         DruidStatProperties.StatViewServlet servletProps = properties.getStatViewServlet();
         DruidStatProperties.WebStatFilter filterProps = properties.getWebStatFilter();
 
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.druid;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.StringUtils;
+
+
+/**
+ * Matcher of the exclusions of the druid web stat filter, which is compiled from the patterns once
+ * <p>
+ * The patterns follow the semantics of {@link com.alibaba.druid.util.ServletPathMatcher}.
+ * The extension patterns such as {@code *.css} are compiled into a hash set, looked up by the extension of the request uri,
+ * the prefix patterns such as {@code /druid/*} are compiled into a character trie, and the exact patterns into a hash set,
+ * so a request uri is matched in a time independent of the number of patterns
+ *
+ * @author David Hsing
+ */
+public class WebStatExclusionMatcher {
+    private final Set<String> extensions = new HashSet<>();
+    private final Set<String> exactPaths = new HashSet<>();
+    private final TrieNode prefixes = new TrieNode();
+    private final List<String> suffixes = new ArrayList<>();
+    private final List<String[]> infixes = new ArrayList<>();
+    private final boolean empty;
+
+    public WebStatExclusionMatcher(@Nullable String exclusions) {
+        boolean found = false;
+        for (String element : StringUtils.split(StringUtils.defaultString(exclusions), ',')) {
+            String pattern = StringUtils.trimToNull(element);
+            if (pattern == null) {
+                continue;
+            }
+            found = true;
+            if (pattern.endsWith("*")) {    // $NON-NLS-1$
+                prefixes.insert(pattern.substring(0, pattern.length() - 1));
+            } else if (pattern.startsWith("*")) {    // $NON-NLS-1$
+                String suffix = pattern.substring(1);
+                if (suffix.lastIndexOf('.') == 0 && suffix.indexOf('/') < 0 && suffix.indexOf('*') < 0) {
+                    extensions.add(suffix);
+                } else {
+                    suffixes.add(suffix);
+                }
+            } else if (pattern.contains("*")) {    // $NON-NLS-1$
+                infixes.add(new String[] {pattern.substring(0, pattern.indexOf('*')), pattern.substring(pattern.lastIndexOf('*') + 1)});
+            } else {
+                exactPaths.add(pattern);
+            }
+        }
+        this.empty = !found;
+    }
+
+    /**
+     * Returns whether the specified request uri is excluded
+     *
+     * @param requestUri the request uri, without the context path
+     *
+     * @return whether the specified request uri is excluded
+     */
+    public boolean matches(@Nullable String requestUri) {
+        if (empty || requestUri == null) {
+            return false;
+        }
+        if (!extensions.isEmpty()) {
+            int dot = requestUri.lastIndexOf('.');
+            if (dot > requestUri.lastIndexOf('/') && extensions.contains(requestUri.substring(dot))) {
+                return true;
+            }
+        }
+        if (exactPaths.contains(requestUri) || prefixes.matchesPrefix(requestUri)) {
+            return true;
+        }
+        for (String suffix : suffixes) {
+            if (requestUri.endsWith(suffix)) {
+                return true;
+            }
+        }
+        for (String[] infix : infixes) {
+            if (requestUri.startsWith(infix[0]) && requestUri.endsWith(infix[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Entry of {@code com.yookue.springstarter.multipledatasource.druid.WebStatExclusionMatcher.TrieNode}
+     *
+     * @author David Hsing
+     */
+    private static class TrieNode {
+        private Map<Character, TrieNode> children;
+        private boolean terminal;
+
+        private void insert(@Nonnull String prefix) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                if (node.children == null) {
+                    node.children = new HashMap<>();
+                }
+                node = node.children.computeIfAbsent(prefix.charAt(i), key -> new TrieNode());
+            }
+            node.terminal = true;
+        }
+
+        private boolean matchesPrefix(@Nonnull String source) {
+            TrieNode node = this;
+            for (int i = 0; ; i++) {
+                if (node.terminal) {
+                    return true;
+                }
+                if (i >= source.length() || node.children == null) {
+                    return false;
+                }
+                node = node.children.get(source.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+        }
+    }
+}
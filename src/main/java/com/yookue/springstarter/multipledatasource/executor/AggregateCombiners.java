@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.executor;
+
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.function.BinaryOperator;
+import jakarta.annotation.Nonnull;
+
+
+/**
+ * Combiners for the aggregates of scatter-gather queries
+ * <p>
+ * Note that an average cannot be combined from the averages of each datasource, query the sum and the count instead
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.executor.MultiDataSourceQueryExecutor#aggregate
+ */
+@SuppressWarnings("unused")
+public abstract class AggregateCombiners {
+    @Nonnull
+    public static BinaryOperator<Number> sumLong() {
+        return (alpha, beta) -> alpha.longValue() + beta.longValue();
+    }
+
+    @Nonnull
+    public static BinaryOperator<BigDecimal> sumDecimal() {
+        return BigDecimal::add;
+    }
+
+    @Nonnull
+    public static <T extends Comparable<? super T>> BinaryOperator<T> min() {
+        return BinaryOperator.minBy(Comparator.naturalOrder());
+    }
+
+    @Nonnull
+    public static <T extends Comparable<? super T>> BinaryOperator<T> max() {
+        return BinaryOperator.maxBy(Comparator.naturalOrder());
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.executor;
+
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BinaryOperator;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import com.yookue.springstarter.multipledatasource.enumeration.PartialResultPolicy;
+import lombok.Getter;
+
+
+/**
+ * Executor that runs the same query on each datasource concurrently, and gathers the results
+ * <p>
+ * The latency of a query is the max of the datasources, instead of the sum.
+ * The sorted rows are merged by k-way merge, and each datasource fetches at most {@code offset + limit} rows, by the max rows of the statement.
+ * Without a limit, the rows of each datasource are loaded in memory entirely before merging.
+ * The task executor is shut down on close only if it is owned by the executor
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.executor.ScatterQuery
+ */
+@Getter
+@SuppressWarnings("unused")
+public class MultiDataSourceQueryExecutor implements AutoCloseable {
+    private final Map<String, JdbcOperations> templates;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Duration timeout;
+    private final PartialResultPolicy partialResultPolicy;
+    private final boolean taskExecutorOwned;
+
+    public MultiDataSourceQueryExecutor(@Nonnull Map<String, JdbcOperations> templates, @Nonnull AsyncTaskExecutor taskExecutor, @Nonnull Duration timeout, @Nonnull PartialResultPolicy partialResultPolicy) {
+        this(templates, taskExecutor, timeout, partialResultPolicy, false);
+    }
+
+    public MultiDataSourceQueryExecutor(@Nonnull Map<String, JdbcOperations> templates, @Nonnull AsyncTaskExecutor taskExecutor, @Nonnull Duration timeout, @Nonnull PartialResultPolicy partialResultPolicy, boolean taskExecutorOwned) {
+        this.templates = Collections.unmodifiableMap(new LinkedHashMap<>(templates));
+        this.taskExecutor = taskExecutor;
+        this.timeout = timeout;
+        this.partialResultPolicy = partialResultPolicy;
+        this.taskExecutorOwned = taskExecutorOwned;
+    }
+
+    /**
+     * Returns the rows of the query on each datasource, concatenated in the order of the datasources
+     */
+    @Nonnull
+    public <T> List<T> query(@Nonnull String sql, @Nonnull RowMapper<T> rowMapper, @Nullable Object... args) {
+        return query(new ScatterQuery<>(sql, rowMapper, args)).getRows();
+    }
+
+    /**
+     * Returns the result of the scatter-gather query
+     *
+     * @param query the scatter-gather query
+     *
+     * @return the result of the scatter-gather query
+     *
+     * @throws ScatterQueryException if any datasource fails and partial results are not allowed
+     */
+    @Nonnull
+    public <T> ScatterResult<T> query(@Nonnull ScatterQuery<T> query) {
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        Map<String, List<T>> results = scatter(query, maxRows(query), failures);
+        return new ScatterResult<>(merge(results.values(), query.getComparator(), query.getOffset(), query.getLimit()), failures);
+    }
+
+    /**
+     * Returns the combined single value of the query on each datasource, such as {@code SELECT COUNT(*) FROM ...}
+     *
+     * @param sql the query that returns a single column
+     * @param requiredType the type of the column
+     * @param combiner the combiner of the values, such as {@code Long::sum}
+     * @param args the arguments of the query
+     *
+     * @return the combined single value, or {@code null} if no value
+     *
+     * @throws ScatterQueryException if any datasource fails, regardless of the partial result policy
+     */
+    @Nullable
+    public <T> T aggregate(@Nonnull String sql, @Nonnull Class<T> requiredType, @Nonnull BinaryOperator<T> combiner, @Nullable Object... args) {
+        return aggregate(new ScatterQuery<>(sql, new SingleColumnRowMapper<>(requiredType), args), combiner);
+    }
+
+    /**
+     * Returns the combined value of the rows of the query on each datasource
+     *
+     * @param query the scatter-gather query
+     * @param combiner the combiner of the rows
+     *
+     * @return the combined value, or {@code null} if no row
+     *
+     * @throws ScatterQueryException if any datasource fails, regardless of the partial result policy, since a partial aggregate is wrong silently
+     */
+    @Nullable
+    public <T> T aggregate(@Nonnull ScatterQuery<T> query, @Nonnull BinaryOperator<T> combiner) {
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        Map<String, List<T>> results = scatter(query, 0, failures);
+        if (!failures.isEmpty()) {
+            throw new ScatterQueryException("Scatter-gather aggregate failed on datasources " + failures.keySet(), failures);
+        }
+        T result = null;
+        for (List<T> rows : results.values()) {
+            for (T row : rows) {
+                if (row != null) {
+                    result = (result == null) ? row : combiner.apply(result, row);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Nonnull
+    private <T> Map<String, List<T>> scatter(@Nonnull ScatterQuery<T> query, int maxRows, @Nonnull Map<String, Throwable> failures) {
+        Duration queryTimeout = ObjectUtils.defaultIfNull(query.getTimeout(), timeout);
+        PartialResultPolicy policy = ObjectUtils.defaultIfNull(query.getPartialResultPolicy(), partialResultPolicy);
+        Map<String, Future<List<T>>> futures = new LinkedHashMap<>(templates.size());
+        for (Map.Entry<String, JdbcOperations> entry : templates.entrySet()) {
+            if (!CollectionUtils.isEmpty(query.getSources()) && !query.getSources().contains(entry.getKey())) {
+                continue;
+            }
+            try {
+                futures.put(entry.getKey(), taskExecutor.submit(() -> execute(entry.getValue(), query, queryTimeout, maxRows)));
+            } catch (RuntimeException ex) {
+                failures.put(entry.getKey(), ex);
+            }
+        }
+        Assert.isTrue(!futures.isEmpty() || !failures.isEmpty(), "No datasource matches the query");
+        long deadline = System.nanoTime() + queryTimeout.toNanos();
+        Map<String, List<T>> results = new LinkedHashMap<>(futures.size());
+        try {
+            for (Map.Entry<String, Future<List<T>>> entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get(Math.max(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException ex) {
+                    entry.getValue().cancel(true);
+                    failures.put(entry.getKey(), ex);
+                } catch (ExecutionException ex) {
+                    failures.put(entry.getKey(), ObjectUtils.defaultIfNull(ex.getCause(), ex));
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            futures.values().forEach(future -> future.cancel(true));
+            failures.put("interrupted", ex);    // $NON-NLS-1$
+            throw new ScatterQueryException("Scatter-gather query was interrupted", failures);
+        }
+        if (!failures.isEmpty() && (policy == PartialResultPolicy.FAIL || results.isEmpty())) {
+            throw new ScatterQueryException("Scatter-gather query failed on datasources " + failures.keySet(), failures);
+        }
+        return results;
+    }
+
+    @Nonnull
+    private <T> List<T> execute(@Nonnull JdbcOperations template, @Nonnull ScatterQuery<T> query, @Nonnull Duration queryTimeout, int maxRows) {
+        return template.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(query.getSql());
+            statement.setQueryTimeout((int) Math.max(queryTimeout.toSeconds(), 1L));
+            if (maxRows > 0) {
+                statement.setMaxRows(maxRows);
+            }
+            new ArgumentPreparedStatementSetter(query.getArgs()).setValues(statement);
+            return statement;
+        }, query.getRowMapper());
+    }
+
+    /**
+     * Returns the max rows that each datasource has to fetch, or zero for unlimited
+     * <p>
+     * Either merged or concatenated, no datasource contributes the rows beyond {@code offset + limit}
+     */
+    private static int maxRows(@Nonnull ScatterQuery<?> query) {
+        if (query.getLimit() < 0L) {
+            return 0;
+        }
+        long rows = Math.max(query.getOffset(), 0L) + query.getLimit();
+        return (rows > Integer.MAX_VALUE) ? 0 : (int) Math.max(rows, 1L);
+    }
+
+    /**
+     * Returns the merged rows, by k-way merge if the comparator is present, otherwise by concatenation
+     *
+     * @param sources the sorted rows of each datasource
+     * @param comparator the comparator of the rows
+     * @param offset the count of rows to skip
+     * @param limit the max count of rows, or negative for unlimited
+     *
+     * @return the merged rows
+     */
+    @Nonnull
+    public static <T> List<T> merge(@Nonnull Collection<List<T>> sources, @Nullable Comparator<? super T> comparator, long offset, long limit) {
+        List<T> result = new ArrayList<>();
+        if (limit == 0L) {
+            return result;
+        }
+        long skipped = 0L;
+        if (comparator == null) {
+            for (List<T> rows : sources) {
+                for (T row : rows) {
+                    if (skipped++ < offset) {
+                        continue;
+                    }
+                    result.add(row);
+                    if (limit > 0L && result.size() >= limit) {
+                        return result;
+                    }
+                }
+            }
+            return result;
+        }
+        PriorityQueue<Cursor<T>> queue = new PriorityQueue<>(Math.max(sources.size(), 1), (alpha, beta) -> comparator.compare(alpha.head, beta.head));
+        for (List<T> rows : sources) {
+            Iterator<T> iterator = rows.iterator();
+            if (iterator.hasNext()) {
+                queue.add(new Cursor<>(iterator));
+            }
+        }
+        while (!queue.isEmpty()) {
+            Cursor<T> cursor = queue.poll();
+            if (skipped++ >= offset) {
+                result.add(cursor.head);
+                if (limit > 0L && result.size() >= limit) {
+                    break;
+                }
+            }
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (!taskExecutorOwned) {
+            return;
+        }
+        if (taskExecutor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        } else if (taskExecutor instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+
+    private static class Cursor<T> {
+        private final Iterator<T> iterator;
+        private T head;
+
+        private Cursor(@Nonnull Iterator<T> iterator) {
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+
+        private boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            head = iterator.next();
+            return true;
+        }
+    }
+}
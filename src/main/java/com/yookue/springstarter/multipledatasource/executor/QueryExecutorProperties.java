@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.executor;
+
+
+import java.io.Serializable;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import com.yookue.springstarter.multipledatasource.enumeration.PartialResultPolicy;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+
+/**
+ * Properties for the scatter-gather query executor
+ *
+ * @author David Hsing
+ */
+@ConfigurationProperties(prefix = "spring.multiple-datasource.query-executor")
+@Getter
+@Setter
+@ToString
+public class QueryExecutorProperties implements Serializable {
+    private Boolean enabled;
+    private Duration timeout = Duration.ofSeconds(10L);
+    private PartialResultPolicy partialResult = PartialResultPolicy.FAIL;
+    private Integer poolSize = 8;
+    private Integer queueCapacity = 64;
+}
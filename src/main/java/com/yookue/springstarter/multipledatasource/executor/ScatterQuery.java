@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.executor;
+
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Set;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.util.Assert;
+import com.yookue.springstarter.multipledatasource.enumeration.PartialResultPolicy;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+
+/**
+ * Scatter-gather query that runs on each datasource
+ * <p>
+ * If the comparator is present, the rows of each datasource must be sorted by the same order, so that they can be merged.
+ * The offset and limit are applied to the merged rows, and each datasource fetches at most {@code offset + limit} rows.
+ * Without a limit, the rows of each datasource are loaded in memory entirely
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.executor.MultiDataSourceQueryExecutor
+ */
+@Getter
+@Setter
+@ToString
+@SuppressWarnings("unused")
+public class ScatterQuery<T> {
+    private final String sql;
+    private final RowMapper<T> rowMapper;
+    private final Object[] args;
+    private Comparator<? super T> comparator;
+    private long offset;
+    private long limit = -1L;
+    private Duration timeout;
+    private PartialResultPolicy partialResultPolicy;
+    private Set<String> sources;
+
+    public ScatterQuery(@Nonnull String sql, @Nonnull RowMapper<T> rowMapper, @Nullable Object... args) {
+        Assert.hasText(sql, "Sql must not be empty");
+        this.sql = sql;
+        this.rowMapper = rowMapper;
+        this.args = args;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.executor;
+
+
+import java.util.Map;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.dao.UncategorizedDataAccessException;
+import lombok.Getter;
+
+
+/**
+ * Exception thrown when a scatter-gather query fails on any datasource, and partial results are not allowed
+ *
+ * @author David Hsing
+ */
+@Getter
+public class ScatterQueryException extends UncategorizedDataAccessException {
+    private final transient Map<String, Throwable> failures;
+
+    public ScatterQueryException(@Nullable String message, @Nonnull Map<String, Throwable> failures) {
+        super(message, failures.values().stream().findFirst().orElse(null));
+        this.failures = failures;
+        failures.values().stream().skip(1L).forEach(this::addSuppressed);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.executor;
+
+
+import java.util.List;
+import java.util.Map;
+import jakarta.annotation.Nonnull;
+import lombok.Getter;
+import lombok.ToString;
+
+
+/**
+ * Result of a scatter-gather query
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.executor.MultiDataSourceQueryExecutor
+ */
+@Getter
+@ToString
+public class ScatterResult<T> {
+    private final List<T> rows;
+    private final Map<String, Throwable> failures;
+
+    public ScatterResult(@Nonnull List<T> rows, @Nonnull Map<String, Throwable> failures) {
+        this.rows = rows;
+        this.failures = failures;
+    }
+
+    /**
+     * Returns whether some datasources failed or timed out, and their rows are absent
+     *
+     * @return whether some datasources failed or timed out
+     */
+    public boolean isPartial() {
+        return !failures.isEmpty();
+    }
+}
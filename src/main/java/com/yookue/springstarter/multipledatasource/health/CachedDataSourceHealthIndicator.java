@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.health;
+
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import lombok.Getter;
+
+
+/**
+ * Health indicator of a datasource, which serves the result of the latest probe instead of borrowing a connection on every request
+ * <p>
+ * The probe validates a connection by {@code validation-query}, or by {@link java.sql.Connection#isValid(int)} if absent, and is bounded by {@code timeout}.
+ * The probe runs without blocking the scheduler, and a probe that has not exited yet when the next one is due, even if timed out, is reported as down rather than stacked.
+ * The result older than {@code stale-after} is reported as down as well, since the probes are not working anyway
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.health.DataSourceHealthMonitor
+ */
+public class CachedDataSourceHealthIndicator implements HealthIndicator, AutoCloseable {
+    @Getter
+    private final String name;
+    private final DataSource dataSource;
+    private final String validationQuery;
+    @Getter
+    private final Duration interval;
+    private final Duration timeout;
+    private final Duration staleAfter;
+    private volatile Health health = Health.unknown().withDetail("reason", "Not probed yet").build();    // $NON-NLS-1$ // $NON-NLS-2$
+    private volatile long probedAt;
+    private volatile String product;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Future<?> probe;
+    private volatile Future<?> refresh;
+
+    public CachedDataSourceHealthIndicator(@Nonnull String name, @Nonnull DataSource dataSource, @Nonnull DataSourceFeatureProperties.HealthCheck properties) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.validationQuery = properties.getValidationQuery();
+        this.interval = (properties.getInterval() == null) ? Duration.ofSeconds(10L) : properties.getInterval();
+        this.timeout = (properties.getTimeout() == null) ? Duration.ofSeconds(3L) : properties.getTimeout();
+        this.staleAfter = (properties.getStaleAfter() == null) ? interval.multipliedBy(3L) : properties.getStaleAfter();
+    }
+
+    @Override
+    public Health health() {
+        Health result = health;
+        long at = probedAt;
+        if (at > 0L && System.nanoTime() - at > staleAfter.toNanos()) {
+            return Health.down().withDetails(result.getDetails()).withDetail("reason", "Stale result").build();    // $NON-NLS-1$ // $NON-NLS-2$
+        }
+        return result;
+    }
+
+    /**
+     * Probes the datasource on the specified executor, and reports it as down if the probe has not finished within {@code timeout}
+     * <p>
+     * Neither waits for the probe, the result is updated by the probe on completion, or by the timeout task on the scheduler
+     *
+     * @param executor the executor to run the probe
+     * @param scheduler the scheduler to run the timeout task
+     */
+    public void refresh(@Nonnull ExecutorService executor, @Nonnull ScheduledExecutorService scheduler) {
+        if (!running.compareAndSet(false, true)) {
+            update(Health.down().withDetail("reason", "Previous probe still running").build());    // $NON-NLS-1$ // $NON-NLS-2$
+            return;
+        }
+        Probe current = new Probe();
+        probe = current;
+        try {
+            executor.execute(current);
+        } catch (RejectedExecutionException ex) {
+            running.set(false);
+            return;
+        }
+        scheduler.schedule(() -> {
+            if (current.cancel(true)) {
+                update(Health.down().withDetail("reason", "Timed out after " + timeout.toMillis() + "ms").build());    // $NON-NLS-1$ // $NON-NLS-2$ // $NON-NLS-3$
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Nonnull
+    private Health check() throws SQLException {
+        long start = System.nanoTime();
+        int seconds = (int) Math.max(timeout.toSeconds(), 1L);
+        try (Connection connection = dataSource.getConnection()) {
+            if (product == null) {
+                DatabaseMetaData metaData = connection.getMetaData();
+                product = metaData.getDatabaseProductName();
+            }
+            boolean valid;
+            if (StringUtils.isBlank(validationQuery)) {
+                valid = connection.isValid(seconds);
+            } else {
+                try (Statement statement = connection.createStatement()) {
+                    statement.setQueryTimeout(seconds);
+                    try (ResultSet ignored = statement.executeQuery(validationQuery)) {
+                        valid = true;
+                    }
+                }
+            }
+            Health.Builder builder = valid ? Health.up() : Health.down();
+            builder.withDetail("database", product);    // $NON-NLS-1$
+            builder.withDetail("validationQuery", StringUtils.defaultIfBlank(validationQuery, "isValid()"));    // $NON-NLS-1$ // $NON-NLS-2$
+            builder.withDetail("elapsed", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");    // $NON-NLS-1$ // $NON-NLS-2$
+            return builder.build();
+        }
+    }
+
+    private void update(@Nonnull Health result) {
+        health = Health.status(result.getStatus()).withDetails(result.getDetails()).withDetail("checkedAt", Instant.now().toString()).build();    // $NON-NLS-1$
+        probedAt = System.nanoTime();
+    }
+
+    /**
+     * Sets the scheduled refresh of the indicator, which will be cancelled on close
+     *
+     * @param refresh the scheduled refresh
+     */
+    public void setRefresh(@Nullable Future<?> refresh) {
+        this.refresh = refresh;
+    }
+
+    @Override
+    public void close() {
+        Future<?> future = refresh;
+        if (future != null) {
+            future.cancel(true);
+        }
+        Future<?> current = probe;
+        if (current != null) {
+            current.cancel(true);
+        }
+    }
+
+
+    /**
+     * Probe of {@code com.yookue.springstarter.multipledatasource.health.CachedDataSourceHealthIndicator}, which updates the result on completion unless cancelled
+     * <p>
+     * The running flag is cleared only when the probe really exits, since a cancelled probe may still be blocked in the driver
+     *
+     * @author David Hsing
+     */
+    private class Probe extends FutureTask<Health> {
+        private Probe() {
+            super(CachedDataSourceHealthIndicator.this::check);
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                running.set(false);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                update(get());
+            } catch (ExecutionException ex) {
+                update(Health.down(ex.getCause() instanceof Exception cause ? cause : ex).build());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
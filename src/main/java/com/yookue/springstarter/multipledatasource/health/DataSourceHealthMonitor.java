@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.health;
+
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Monitor that refreshes the cached health indicators of the datasources on a shared scheduler
+ * <p>
+ * The probes run on a bounded pool of daemon threads, so that an unreachable database never blocks the scheduler or the other datasources.
+ * Each indicator has at most one probe in flight, so the stuck probes never exceed the datasources
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.health.CachedDataSourceHealthIndicator
+ */
+@Slf4j
+public class DataSourceHealthMonitor implements DisposableBean {
+    private static final int MAX_PROBE_THREADS = 8;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService prober;
+
+    public DataSourceHealthMonitor() {
+        CustomizableThreadFactory schedulerFactory = new CustomizableThreadFactory("multiple-datasource-health-");    // $NON-NLS-1$
+        schedulerFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(schedulerFactory);
+        CustomizableThreadFactory proberFactory = new CustomizableThreadFactory("multiple-datasource-health-probe-");    // $NON-NLS-1$
+        proberFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_PROBE_THREADS, MAX_PROBE_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), proberFactory);
+        executor.allowCoreThreadTimeOut(true);
+        this.prober = executor;
+    }
+
+    /**
+     * Schedules the refresh of the specified health indicator, which is refreshed immediately for the first time
+     *
+     * @param indicator the cached health indicator
+     *
+     * @return the scheduled refresh
+     */
+    @Nonnull
+    public ScheduledFuture<?> schedule(@Nonnull CachedDataSourceHealthIndicator indicator) {
+        long interval = Math.max(indicator.getInterval().toMillis(), 100L);
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                indicator.refresh(prober, scheduler);
+            } catch (RuntimeException ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Failed to refresh health of datasource '{}'", indicator.getName(), ex);
+                }
+            }
+        }, 0L, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        prober.shutdownNow();
+    }
+}
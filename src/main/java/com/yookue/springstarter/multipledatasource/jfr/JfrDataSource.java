@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.jfr;
+
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import jdk.jfr.FlightRecorder;
+import lombok.Getter;
+
+
+/**
+ * JFR datasource that emits the custom flight recorder events for the jdbc operations
+ * <p>
+ * The connections are returned as is, unless the release or transaction events are enabled by a running recording,
+ * so the cost is no more than a few checks when there is no recording.
+ * The statement events are emitted by the {@link com.yookue.springstarter.multipledatasource.jfr.JfrStatementListener}
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.jfr.ConnectionAcquireEvent
+ * @see com.yookue.springstarter.multipledatasource.jfr.ConnectionReleaseEvent
+ * @see com.yookue.springstarter.multipledatasource.jfr.StatementExecuteEvent
+ * @see com.yookue.springstarter.multipledatasource.jfr.TransactionCommitEvent
+ */
+@Getter
+public class JfrDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final String name;
+
+    public JfrDataSource(@Nonnull String name, @Nonnull DataSource dataSource) {
+        super(dataSource);
+        this.name = name;
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null, false);
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(username, password, true);
+    }
+
+    @Nonnull
+    private Connection getConnection(@Nullable String username, @Nullable String password, boolean credentials) throws SQLException {
+        if (!FlightRecorder.isInitialized()) {
+            return credentials ? obtainTargetDataSource().getConnection(username, password) : obtainTargetDataSource().getConnection();
+        }
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+        event.begin();
+        Connection connection;
+        try {
+            connection = credentials ? obtainTargetDataSource().getConnection(username, password) : obtainTargetDataSource().getConnection();
+        } catch (SQLException | RuntimeException ex) {
+            event.failed = true;
+            commit(event);
+            throw ex;
+        }
+        commit(event);
+        if (!new ConnectionReleaseEvent().isEnabled() && !new TransactionCommitEvent().isEnabled()) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, new ConnectionHandler(connection, System.nanoTime()));
+    }
+
+    private void commit(@Nonnull ConnectionAcquireEvent event) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.dataSource = name;
+            event.commit();
+        }
+    }
+
+    @Nullable
+    private static Object invokeTarget(@Nonnull Object target, @Nonnull Method method, @Nullable Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    @Override
+    public void close() {
+        DataSourcePoolUtils.closeQuietly(getTargetDataSource());
+    }
+
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final long acquired;
+        private boolean closed;
+
+        private ConnectionHandler(@Nonnull Connection target, long acquired) {
+            this.target = target;
+            this.acquired = acquired;
+        }
+
+        @Override
+        public Object invoke(Object proxy, @Nonnull Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            switch (methodName) {
+                case "equals":    // $NON-NLS-1$
+                    return proxy == args[0];
+                case "hashCode":    // $NON-NLS-1$
+                    return System.identityHashCode(proxy);
+                case "close":    // $NON-NLS-1$
+                    return closed ? null : release(method, args);
+                case "commit":    // $NON-NLS-1$
+                case "rollback":    // $NON-NLS-1$
+                    return complete(methodName, method, args);
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        @Nullable
+        private Object release(@Nonnull Method method, @Nullable Object[] args) throws Throwable {
+            closed = true;
+            ConnectionReleaseEvent event = new ConnectionReleaseEvent();
+            event.begin();
+            try {
+                return invokeTarget(target, method, args);
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.dataSource = name;
+                    event.heldTime = System.nanoTime() - acquired;
+                    event.commit();
+                }
+            }
+        }
+
+        @Nullable
+        private Object complete(@Nonnull String operation, @Nonnull Method method, @Nullable Object[] args) throws Throwable {
+            TransactionCommitEvent event = new TransactionCommitEvent();
+            event.begin();
+            try {
+                return invokeTarget(target, method, args);
+            } catch (Throwable ex) {
+                event.failed = true;
+                throw ex;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.dataSource = name;
+                    event.operation = operation;
+                    event.commit();
+                }
+            }
+        }
+    }
+}
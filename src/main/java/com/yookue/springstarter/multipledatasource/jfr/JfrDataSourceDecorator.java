@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.jfr;
+
+
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.decorator.DataSourceDecorator;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+
+
+/**
+ * Decorator that wraps the datasource with a jfr datasource, if {@code jfr-events} is true
+ * <p>
+ * It is applied outside the bulkhead and the circuit breaker, so that the acquisition events include the waits of them
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.jfr.JfrDataSource
+ */
+public class JfrDataSourceDecorator implements DataSourceDecorator {
+    public static final int ORDER = 1050;
+
+    private final Environment environment;
+
+    public JfrDataSourceDecorator(@Nonnull Environment environment) {
+        this.environment = environment;
+    }
+
+    @Nonnull
+    @Override
+    public DataSource decorate(@Nonnull DataSourceDescriptor descriptor, @Nonnull DataSource dataSource) {
+        if (BooleanUtils.isNotTrue(DataSourceFeatureProperties.bind(environment, descriptor).getJfrEvents())) {
+            return dataSource;
+        }
+        return new JfrDataSource(descriptor.getName(), dataSource);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
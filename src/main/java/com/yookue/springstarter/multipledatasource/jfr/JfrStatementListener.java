@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.jfr;
+
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.statement.StatementExecution;
+import com.yookue.springstarter.multipledatasource.statement.StatementExecutionListener;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import jdk.jfr.FlightRecorder;
+
+
+/**
+ * Listener that emits the {@link com.yookue.springstarter.multipledatasource.jfr.StatementExecuteEvent}, for the datasources whose {@code jfr-events} is true
+ * <p>
+ * The event begins before the statement is executed, and ends after it, on the executing thread.
+ * When no recording enables the event, the cost is no more than a few checks, and the sql fingerprint is looked up only for the events to be committed
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.jfr.JfrDataSource
+ */
+public class JfrStatementListener implements StatementExecutionListener {
+    private static final StatementExecuteEvent DISABLED = new StatementExecuteEvent();
+
+    private final Set<String> names;
+    private final ThreadLocal<Deque<StatementExecuteEvent>> events = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public JfrStatementListener(@Nonnull Environment environment) {
+        Set<String> result = new LinkedHashSet<>();
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            if (BooleanUtils.isTrue(DataSourceFeatureProperties.bind(environment, descriptor).getJfrEvents())) {
+                result.add(descriptor.getName());
+            }
+        }
+        this.names = Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public boolean supports(@Nonnull String name) {
+        return names.contains(name);
+    }
+
+    @Override
+    public void beforeExecute(@Nonnull String name, @Nonnull String operation, @Nonnull String sql) {
+        Deque<StatementExecuteEvent> stack = events.get();
+        StatementExecuteEvent event = FlightRecorder.isInitialized() ? new StatementExecuteEvent() : DISABLED;
+        if (event == DISABLED || !event.isEnabled()) {
+            stack.push(DISABLED);
+            return;
+        }
+        event.begin();
+        stack.push(event);
+    }
+
+    @Override
+    public void afterExecute(@Nonnull StatementExecution execution) {
+        Deque<StatementExecuteEvent> stack = events.get();
+        StatementExecuteEvent event = stack.poll();
+        if (stack.isEmpty()) {
+            events.remove();
+        }
+        if (event == null || event == DISABLED) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.dataSource = execution.getName();
+            event.operation = execution.getOperation();
+            event.fingerprint = execution.getFingerprint();
+            event.updateCount = execution.getUpdateCount();
+            event.failed = execution.isFailed();
+            event.commit();
+        }
+    }
+}
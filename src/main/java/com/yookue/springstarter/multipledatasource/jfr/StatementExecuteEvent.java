@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.jfr;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+
+/**
+ * JFR event of the statement execution of a configured datasource
+ *
+ * @author David Hsing
+ */
+@Name(value = "com.yookue.multipledatasource.StatementExecute")
+@Label(value = "Statement Execute")
+@Description(value = "Execution of a statement on a configured datasource")
+@Category(value = {"Multiple Datasource", "JDBC"})
+@StackTrace(value = false)
+@Threshold(value = "10 ms")
+@SuppressWarnings("unused")
+public class StatementExecuteEvent extends Event {
+    @Label(value = "Datasource")
+    String dataSource;
+
+    @Label(value = "Operation")
+    String operation;
+
+    @Label(value = "SQL Fingerprint")
+    String fingerprint;
+
+    @Label(value = "Update Count")
+    long updateCount;
+
+    @Label(value = "Failed")
+    boolean failed;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.jfr;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event of the transaction completion of a configured datasource
+ *
+ * @author David Hsing
+ */
+@Name(value = "com.yookue.multipledatasource.TransactionCommit")
+@Label(value = "Transaction Commit")
+@Description(value = "Commit or rollback of a transaction on a configured datasource")
+@Category(value = {"Multiple Datasource", "JDBC"})
+@StackTrace(value = false)
+@SuppressWarnings("unused")
+public class TransactionCommitEvent extends Event {
+    @Label(value = "Datasource")
+    String dataSource;
+
+    @Label(value = "Operation")
+    String operation;
+
+    @Label(value = "Failed")
+    boolean failed;
+}
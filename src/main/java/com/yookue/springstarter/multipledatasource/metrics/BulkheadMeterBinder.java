@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.metrics;
+
+
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.decorator.BulkheadDataSource;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Meter binder for the bulkheads of the configured datasources
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.BulkheadDataSource
+ */
+public class BulkheadMeterBinder implements MeterBinder {
+    private final Environment environment;
+    private final BeanFactory beanFactory;
+
+    public BulkheadMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            if (BooleanUtils.isNotTrue(DataSourceFeatureProperties.bind(environment, descriptor).getBulkhead().getEnabled())) {
+                continue;
+            }
+            LazyDataSourceLookup<BulkheadDataSource> lookup = new LazyDataSourceLookup<>(beanFactory, descriptor.getDataSourceBeanName(), BulkheadDataSource.class);
+            Gauge.builder("multiple.datasource.bulkhead.active", lookup, target -> (target.get() == null) ? 0.0D : target.get().getActiveCount())    // $NON-NLS-1$
+                .description("Borrowers holding a permit of the bulkhead")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+            Gauge.builder("multiple.datasource.bulkhead.waiting", lookup, target -> (target.get() == null) ? 0.0D : target.get().getWaitingCount())    // $NON-NLS-1$
+                .description("Borrowers waiting in the queue of the bulkhead")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+            FunctionCounter.builder("multiple.datasource.bulkhead.rejections", lookup, target -> (target.get() == null) ? 0.0D : target.get().getRejectionCount().doubleValue())    // $NON-NLS-1$
+                .description("Borrowers refused by the bulkhead")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.metrics;
+
+
+import java.util.concurrent.atomic.LongAdder;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.decorator.CircuitBreakerDataSource;
+import com.yookue.springstarter.multipledatasource.enumeration.CircuitBreakerState;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Meter binder for the circuit breakers of the configured datasources
+ * <p>
+ * The state gauge is {@code 1} for the current state and {@code 0} for the others, tagged by the name of the datasource and the state
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.CircuitBreakerDataSource
+ */
+public class CircuitBreakerMeterBinder implements MeterBinder {
+    private final Environment environment;
+    private final BeanFactory beanFactory;
+
+    public CircuitBreakerMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            if (BooleanUtils.isNotTrue(DataSourceFeatureProperties.bind(environment, descriptor).getCircuitBreaker().getEnabled())) {
+                continue;
+            }
+            LazyDataSourceLookup<CircuitBreakerDataSource> lookup = new LazyDataSourceLookup<>(beanFactory, descriptor.getDataSourceBeanName(), CircuitBreakerDataSource.class);
+            for (CircuitBreakerState state : CircuitBreakerState.values()) {
+                Gauge.builder("multiple.datasource.circuit.state", lookup, target -> (target.get() != null && target.get().getCurrentState() == state) ? 1.0D : 0.0D)    // $NON-NLS-1$
+                    .description("Whether the circuit of the datasource is in the state")    // $NON-NLS-1$
+                    .tags("name", descriptor.getName(), "state", state.getValue())    // $NON-NLS-1$ // $NON-NLS-2$
+                    .register(registry);
+            }
+            FunctionCounter.builder("multiple.datasource.circuit.failures", lookup, target -> count(target.get() == null ? null : target.get().getFailureCount()))    // $NON-NLS-1$
+                .description("Failed acquisitions of the datasource")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+            FunctionCounter.builder("multiple.datasource.circuit.rejections", lookup, target -> count(target.get() == null ? null : target.get().getRejectionCount()))    // $NON-NLS-1$
+                .description("Acquisitions refused by the open circuit of the datasource")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+        }
+    }
+
+    private static double count(LongAdder adder) {
+        return (adder == null) ? 0.0D : adder.doubleValue();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.metrics;
+
+
+import java.time.Duration;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.decorator.LeakDetectingDataSource;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Meter binder for the leak detectors of the configured datasources
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.LeakDetectingDataSource
+ */
+public class ConnectionLeakMeterBinder implements MeterBinder {
+    private final Environment environment;
+    private final BeanFactory beanFactory;
+
+    public ConnectionLeakMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            Duration threshold = DataSourceFeatureProperties.bind(environment, descriptor).getLeakDetection().getThreshold();
+            if (threshold == null || threshold.isNegative() || threshold.isZero()) {
+                continue;
+            }
+            LazyDataSourceLookup<LeakDetectingDataSource> lookup = new LazyDataSourceLookup<>(beanFactory, descriptor.getDataSourceBeanName(), LeakDetectingDataSource.class);
+            FunctionCounter.builder("multiple.datasource.leak.detected", lookup, target -> (target.get() == null) ? 0.0D : target.get().getLeakCount().doubleValue())    // $NON-NLS-1$
+                .description("Connections held longer than the leak detection threshold")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+            FunctionCounter.builder("multiple.datasource.leak.returned", lookup, target -> (target.get() == null) ? 0.0D : target.get().getLateReturnCount().doubleValue())    // $NON-NLS-1$
+                .description("Leaked connections that were returned afterwards")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+            Gauge.builder("multiple.datasource.leak.active", lookup, target -> (target.get() == null) ? 0.0D : target.get().getActiveLeakCount())    // $NON-NLS-1$
+                .description("Leaked connections that are still held")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+        }
+    }
+}
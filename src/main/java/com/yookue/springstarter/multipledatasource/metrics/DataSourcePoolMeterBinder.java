@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.metrics;
+
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.jdbc.metadata.DataSourcePoolMetadataProvider;
+import org.springframework.boot.jdbc.metadata.CompositeDataSourcePoolMetadataProvider;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.decorator.MeteredDataSource;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Meter binder for the pools of the configured datasources, unified across the supported pool types
+ * <p>
+ * The meters are tagged by the name of the datasource, such as {@code primary}, {@code secondary} and {@code tertiary}.
+ * The pools of the generic path fall back to the pool metadata of spring boot
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.metrics.DataSourcePoolStatistics
+ */
+public class DataSourcePoolMeterBinder implements MeterBinder {
+    private static final double[] ACQUIRE_QUANTILES = {0.5D, 0.99D, 0.999D};
+
+    private final Environment environment;
+    private final BeanFactory beanFactory;
+    private final Collection<DataSourcePoolMetadataProvider> metadataProviders;
+
+    public DataSourcePoolMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory, @Nonnull Collection<DataSourcePoolMetadataProvider> metadataProviders) {
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+        this.metadataProviders = metadataProviders;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            if (BooleanUtils.isFalse(DataSourceFeatureProperties.bind(environment, descriptor).getMetrics().getEnabled())) {
+                continue;
+            }
+            String name = descriptor.getName();
+            StatisticsLookup statistics = new StatisticsLookup(new LazyDataSourceLookup<>(beanFactory, descriptor.getDataSourceBeanName(), DataSource.class));
+            bindGauge(registry, name, "multiple.datasource.pool.active", "Active connections of the pool", statistics, DataSourcePoolStatistics::getActive);    // $NON-NLS-1$
+            bindGauge(registry, name, "multiple.datasource.pool.idle", "Idle connections of the pool", statistics, DataSourcePoolStatistics::getIdle);    // $NON-NLS-1$
+            bindGauge(registry, name, "multiple.datasource.pool.pending", "Threads awaiting connections of the pool", statistics, DataSourcePoolStatistics::getPending);    // $NON-NLS-1$
+            bindGauge(registry, name, "multiple.datasource.pool.max", "Max connections of the pool", statistics, DataSourcePoolStatistics::getMax);    // $NON-NLS-1$
+            bindGauge(registry, name, "multiple.datasource.pool.min", "Min connections of the pool", statistics, DataSourcePoolStatistics::getMin);    // $NON-NLS-1$
+            FunctionTimer.builder("multiple.datasource.pool.creation", statistics, target -> (long) value(target.get(), DataSourcePoolStatistics::getCreateCount), target -> value(target.get(), DataSourcePoolStatistics::getCreateNanos), TimeUnit.NANOSECONDS)    // $NON-NLS-1$
+                .description("Creation of the physical connections, if exposed by the pool")    // $NON-NLS-1$
+                .tag("name", name)    // $NON-NLS-1$
+                .register(registry);
+            LazyDataSourceLookup<MeteredDataSource> metered = new LazyDataSourceLookup<>(beanFactory, descriptor.getDataSourceBeanName(), MeteredDataSource.class);
+            FunctionTimer.builder("multiple.datasource.connection.acquire", metered, target -> (target.get() == null) ? 0L : target.get().getAcquireCount().sum(), target -> (target.get() == null) ? 0.0D : target.get().getAcquireNanos().doubleValue(), TimeUnit.NANOSECONDS)    // $NON-NLS-1$
+                .description("Acquisition of the connections")    // $NON-NLS-1$
+                .tag("name", name)    // $NON-NLS-1$
+                .register(registry);
+            for (double quantile : ACQUIRE_QUANTILES) {
+                TimeGauge.builder("multiple.datasource.connection.acquire.percentile", metered, TimeUnit.NANOSECONDS, target -> (target.get() == null) ? Double.NaN : target.get().getAcquireSnapshot().getValueAtQuantile(quantile))    // $NON-NLS-1$
+                    .description("Percentiles of the acquisition of the connections, in the recent windows")    // $NON-NLS-1$
+                    .tags("name", name, "phi", String.valueOf(quantile))    // $NON-NLS-1$ // $NON-NLS-2$
+                    .register(registry);
+            }
+            TimeGauge.builder("multiple.datasource.connection.acquire.max", metered, TimeUnit.NANOSECONDS, target -> (target.get() == null) ? Double.NaN : target.get().getAcquireSnapshot().getMax())    // $NON-NLS-1$
+                .description("Max of the acquisition of the connections, in the recent windows")    // $NON-NLS-1$
+                .tag("name", name)    // $NON-NLS-1$
+                .register(registry);
+            FunctionTimer.builder("multiple.datasource.connection.usage", metered, target -> (target.get() == null) ? 0L : target.get().getUsageCount().sum(), target -> (target.get() == null) ? 0.0D : target.get().getUsageNanos().doubleValue(), TimeUnit.NANOSECONDS)    // $NON-NLS-1$
+                .description("Usage of the connections, from acquisition to close")    // $NON-NLS-1$
+                .tag("name", name)    // $NON-NLS-1$
+                .register(registry);
+        }
+    }
+
+    private void bindGauge(@Nonnull MeterRegistry registry, @Nonnull String name, @Nonnull String meterName, @Nonnull String description, @Nonnull StatisticsLookup statistics, @Nonnull Function<DataSourcePoolStatistics, Number> function) {
+        Gauge.builder(meterName, statistics, target -> value(target.get(), function))
+            .description(description)
+            .tag("name", name)    // $NON-NLS-1$
+            .register(registry);
+    }
+
+    private static double value(@Nullable DataSourcePoolStatistics statistics, @Nonnull Function<DataSourcePoolStatistics, Number> function) {
+        Number result = (statistics == null) ? null : function.apply(statistics);
+        return (result == null) ? Double.NaN : result.doubleValue();
+    }
+
+
+    private class StatisticsLookup {
+        private final LazyDataSourceLookup<DataSource> dataSource;
+        private volatile DataSourcePoolStatistics statistics;
+
+        private StatisticsLookup(@Nonnull LazyDataSourceLookup<DataSource> dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Nullable
+        private DataSourcePoolStatistics get() {
+            DataSourcePoolStatistics result = statistics;
+            if (result == null) {
+                DataSource pool = DataSourcePoolUtils.unwrapPool(dataSource.get());
+                if (pool != null) {
+                    result = DataSourcePoolStatistics.of(pool, new CompositeDataSourcePoolMetadataProvider(metadataProviders).getDataSourcePoolMetadata(pool));
+                    statistics = result;
+                }
+            }
+            return result;
+        }
+    }
+}
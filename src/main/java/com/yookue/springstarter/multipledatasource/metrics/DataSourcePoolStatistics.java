@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.metrics;
+
+
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.boot.jdbc.metadata.DataSourcePoolMetadata;
+import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+
+
+/**
+ * Statistics of a physical pool, unified across the supported pool types
+ * <p>
+ * The statistics that a pool does not expose are {@code null}
+ *
+ * @author David Hsing
+ */
+@SuppressWarnings("unused")
+public interface DataSourcePoolStatistics {
+    @Nullable
+    Number getActive();
+
+    @Nullable
+    Number getIdle();
+
+    @Nullable
+    Number getPending();
+
+    @Nullable
+    Number getMax();
+
+    @Nullable
+    Number getMin();
+
+    /**
+     * Returns the count of the physical connections created, or {@code null} if not exposed
+     */
+    @Nullable
+    default Number getCreateCount() {
+        return null;
+    }
+
+    /**
+     * Returns the total time of the physical connections creation in nanoseconds, or {@code null} if not exposed
+     */
+    @Nullable
+    default Number getCreateNanos() {
+        return null;
+    }
+
+    /**
+     * Returns the statistics of the specified physical pool
+     *
+     * @param pool the physical pool
+     * @param metadata the pool metadata of spring boot, as the fallback of the generic path
+     *
+     * @return the statistics of the specified physical pool, or {@code null} if not supported
+     */
+    @Nullable
+    static DataSourcePoolStatistics of(@Nonnull DataSource pool, @Nullable DataSourcePoolMetadata metadata) {
+        DataSourcePoolType poolType = DataSourcePoolUtils.detectPoolType(pool.getClass());
+        if (poolType == null) {
+            return (metadata == null) ? null : new Metadata(metadata);
+        }
+        return switch (poolType) {
+            case C3P0 -> new C3p0((com.mchange.v2.c3p0.ComboPooledDataSource) pool);
+            case DBCP2 -> new Dbcp2((org.apache.commons.dbcp2.BasicDataSource) pool);
+            case DRUID -> new Druid((com.alibaba.druid.pool.DruidDataSource) pool);
+            case HIKARI -> new Hikari((com.zaxxer.hikari.HikariDataSource) pool);
+            case ORACLE_UCP, ORACLE_UCP_XA -> new OracleUcp((oracle.ucp.jdbc.PoolDataSource) pool);
+            case TOMCAT -> new Tomcat((org.apache.tomcat.jdbc.pool.DataSource) pool);
+        };
+    }
+
+
+    record C3p0(@Nonnull com.mchange.v2.c3p0.ComboPooledDataSource pool) implements DataSourcePoolStatistics {
+        @Override
+        public Number getActive() {
+            try {
+                return pool.getNumBusyConnectionsDefaultUser();
+            } catch (SQLException ignored) {
+                return null;
+            }
+        }
+
+        @Override
+        public Number getIdle() {
+            try {
+                return pool.getNumIdleConnectionsDefaultUser();
+            } catch (SQLException ignored) {
+                return null;
+            }
+        }
+
+        @Override
+        public Number getPending() {
+            try {
+                return pool.getNumThreadsAwaitingCheckoutDefaultUser();
+            } catch (SQLException ignored) {
+                return null;
+            }
+        }
+
+        @Override
+        public Number getMax() {
+            return pool.getMaxPoolSize();
+        }
+
+        @Override
+        public Number getMin() {
+            return pool.getMinPoolSize();
+        }
+    }
+
+
+    record Dbcp2(@Nonnull org.apache.commons.dbcp2.BasicDataSource pool) implements DataSourcePoolStatistics {
+        @Override
+        public Number getActive() {
+            return pool.getNumActive();
+        }
+
+        @Override
+        public Number getIdle() {
+            return pool.getNumIdle();
+        }
+
+        @Override
+        public Number getPending() {
+            return null;
+        }
+
+        @Override
+        public Number getMax() {
+            return pool.getMaxTotal();
+        }
+
+        @Override
+        public Number getMin() {
+            return pool.getMinIdle();
+        }
+    }
+
+
+    record Druid(@Nonnull com.alibaba.druid.pool.DruidDataSource pool) implements DataSourcePoolStatistics {
+        @Override
+        public Number getActive() {
+            return pool.getActiveCount();
+        }
+
+        @Override
+        public Number getIdle() {
+            return pool.getPoolingCount();
+        }
+
+        @Override
+        public Number getPending() {
+            return pool.getWaitThreadCount();
+        }
+
+        @Override
+        public Number getMax() {
+            return pool.getMaxActive();
+        }
+
+        @Override
+        public Number getMin() {
+            return pool.getMinIdle();
+        }
+
+        @Override
+        public Number getCreateCount() {
+            return pool.getCreateCount();
+        }
+
+        @Override
+        public Number getCreateNanos() {
+            return pool.getCreateTimespanNano();
+        }
+    }
+
+
+    record Hikari(@Nonnull com.zaxxer.hikari.HikariDataSource pool) implements DataSourcePoolStatistics {
+        @Override
+        public Number getActive() {
+            return (pool.getHikariPoolMXBean() == null) ? null : pool.getHikariPoolMXBean().getActiveConnections();
+        }
+
+        @Override
+        public Number getIdle() {
+            return (pool.getHikariPoolMXBean() == null) ? null : pool.getHikariPoolMXBean().getIdleConnections();
+        }
+
+        @Override
+        public Number getPending() {
+            return (pool.getHikariPoolMXBean() == null) ? null : pool.getHikariPoolMXBean().getThreadsAwaitingConnection();
+        }
+
+        @Override
+        public Number getMax() {
+            return pool.getMaximumPoolSize();
+        }
+
+        @Override
+        public Number getMin() {
+            return pool.getMinimumIdle();
+        }
+    }
+
+
+    record OracleUcp(@Nonnull oracle.ucp.jdbc.PoolDataSource pool) implements DataSourcePoolStatistics {
+        @Override
+        public Number getActive() {
+            try {
+                return pool.getBorrowedConnectionsCount();
+            } catch (SQLException ignored) {
+                return null;
+            }
+        }
+
+        @Override
+        public Number getIdle() {
+            try {
+                return pool.getAvailableConnectionsCount();
+            } catch (SQLException ignored) {
+                return null;
+            }
+        }
+
+        @Override
+        public Number getPending() {
+            return null;
+        }
+
+        @Override
+        public Number getMax() {
+            return pool.getMaxPoolSize();
+        }
+
+        @Override
+        public Number getMin() {
+            return pool.getMinPoolSize();
+        }
+    }
+
+
+    record Tomcat(@Nonnull org.apache.tomcat.jdbc.pool.DataSource pool) implements DataSourcePoolStatistics {
+        @Override
+        public Number getActive() {
+            return pool.getActive();
+        }
+
+        @Override
+        public Number getIdle() {
+            return pool.getIdle();
+        }
+
+        @Override
+        public Number getPending() {
+            return pool.getWaitCount();
+        }
+
+        @Override
+        public Number getMax() {
+            return pool.getMaxActive();
+        }
+
+        @Override
+        public Number getMin() {
+            return pool.getMinIdle();
+        }
+    }
+
+
+    record Metadata(@Nonnull DataSourcePoolMetadata metadata) implements DataSourcePoolStatistics {
+        @Override
+        public Number getActive() {
+            return metadata.getActive();
+        }
+
+        @Override
+        public Number getIdle() {
+            return metadata.getIdle();
+        }
+
+        @Override
+        public Number getPending() {
+            return null;
+        }
+
+        @Override
+        public Number getMax() {
+            return metadata.getMax();
+        }
+
+        @Override
+        public Number getMin() {
+            return metadata.getMin();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.metrics;
+
+
+import java.util.function.ToDoubleFunction;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.beans.factory.BeanFactory;
+import com.yookue.springstarter.multipledatasource.druid.DruidFilterConfiguration;
+import com.yookue.springstarter.multipledatasource.druid.DruidSqlFormatCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Meter binder for the formatted sql cache of the druid composite log filters
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.druid.DruidSqlFormatCache
+ */
+public class DruidSqlFormatCacheMeterBinder implements MeterBinder {
+    private final BeanFactory beanFactory;
+    private volatile DruidSqlFormatCache cache;
+
+    public DruidSqlFormatCacheMeterBinder(@Nonnull BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        FunctionCounter.builder("multiple.datasource.druid.format-cache.gets", this, measure(DruidSqlFormatCache::getHits))    // $NON-NLS-1$
+            .description("Lookups of the formatted sql cache that hit")    // $NON-NLS-1$
+            .tag("result", "hit")    // $NON-NLS-1$ // $NON-NLS-2$
+            .register(registry);
+        FunctionCounter.builder("multiple.datasource.druid.format-cache.gets", this, measure(DruidSqlFormatCache::getMisses))    // $NON-NLS-1$
+            .description("Lookups of the formatted sql cache that missed, which ran the druid sql parser")    // $NON-NLS-1$
+            .tag("result", "miss")    // $NON-NLS-1$ // $NON-NLS-2$
+            .register(registry);
+        FunctionCounter.builder("multiple.datasource.druid.format-cache.evictions", this, measure(DruidSqlFormatCache::getEvictions))    // $NON-NLS-1$
+            .description("Entries evicted from the formatted sql cache")    // $NON-NLS-1$
+            .register(registry);
+        Gauge.builder("multiple.datasource.druid.format-cache.size", this, measure(DruidSqlFormatCache::getSize))    // $NON-NLS-1$
+            .description("Entries in the formatted sql cache")    // $NON-NLS-1$
+            .register(registry);
+    }
+
+    @Nonnull
+    private static ToDoubleFunction<DruidSqlFormatCacheMeterBinder> measure(@Nonnull ToDoubleFunction<DruidSqlFormatCache> function) {
+        return binder -> {
+            DruidSqlFormatCache target = binder.getCache();
+            return (target == null) ? 0.0D : function.applyAsDouble(target);
+        };
+    }
+
+    @Nullable
+    private DruidSqlFormatCache getCache() {
+        DruidSqlFormatCache result = cache;
+        if (result == null && beanFactory.containsBean(DruidFilterConfiguration.SQL_FORMAT_CACHE)) {
+            result = beanFactory.getBean(DruidFilterConfiguration.SQL_FORMAT_CACHE, DruidSqlFormatCache.class);
+            cache = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.metrics;
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.env.Environment;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType;
+import com.yookue.springstarter.multipledatasource.druid.DruidCompositeStatFilter;
+import com.yookue.springstarter.multipledatasource.druid.DruidFilterConfiguration;
+import com.yookue.springstarter.multipledatasource.druid.DruidSqlStatWindow;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Meter binder for the latest sql stat windows of the druid datasources
+ * <p>
+ * The gauges are registered only when {@code spring.datasource.druid.filter.stat.window.enabled} is true, and only for the druid datasources
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.druid.DruidCompositeStatFilter
+ */
+public class DruidSqlStatMeterBinder implements MeterBinder {
+    private static final String WINDOW_ENABLED = "spring.datasource.druid.filter.stat.window.enabled";    // $NON-NLS-1$
+
+    private final Environment environment;
+    private final BeanFactory beanFactory;
+    private volatile DruidCompositeStatFilter filter;
+
+    public DruidSqlStatMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        if (!environment.getProperty(WINDOW_ENABLED, Boolean.class, false)) {
+            return;
+        }
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            if (!isDruid(descriptor)) {
+                continue;
+            }
+            LazyDataSourceLookup<DruidDataSource> lookup = new LazyDataSourceLookup<>(beanFactory, descriptor.getDataSourceBeanName(), DruidDataSource.class);
+            Gauge.builder("multiple.datasource.druid.sql.window.executions", lookup, measure(DruidSqlStatWindow::getExecuteCount))    // $NON-NLS-1$
+                .description("Statements executed in the latest sql stat window")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+            Gauge.builder("multiple.datasource.druid.sql.window.errors", lookup, measure(DruidSqlStatWindow::getErrorCount))    // $NON-NLS-1$
+                .description("Statements failed in the latest sql stat window")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+            Gauge.builder("multiple.datasource.druid.sql.window.statements", lookup, measure(DruidSqlStatWindow::getStatementCount))    // $NON-NLS-1$
+                .description("Distinct statements executed in the latest sql stat window")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+            TimeGauge.builder("multiple.datasource.druid.sql.window.time.total", lookup, TimeUnit.MILLISECONDS, measure(DruidSqlStatWindow::getExecuteMillisTotal))    // $NON-NLS-1$
+                .description("Total execution time of the statements in the latest sql stat window")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+            TimeGauge.builder("multiple.datasource.druid.sql.window.time.max", lookup, TimeUnit.MILLISECONDS, measure(DruidSqlStatWindow::getExecuteMillisMax))    // $NON-NLS-1$
+                .description("Max execution time of the statements in the latest sql stat window")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+        }
+    }
+
+    private boolean isDruid(@Nonnull DataSourceDescriptor descriptor) {
+        if (StringUtils.isNotBlank(environment.getProperty(descriptor.getPrefix() + ".jndi-name"))) {    // $NON-NLS-1$
+            return false;
+        }
+        return DataSourcePoolUtils.resolvePoolType(environment.getProperty(descriptor.getPrefix() + ".type"), getClass().getClassLoader()) == DataSourcePoolType.DRUID;    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    private ToDoubleFunction<LazyDataSourceLookup<DruidDataSource>> measure(@Nonnull ToDoubleFunction<DruidSqlStatWindow> function) {
+        return lookup -> {
+            DruidDataSource dataSource = lookup.get();
+            DruidCompositeStatFilter statFilter = getFilter();
+            DruidSqlStatWindow window = (dataSource == null || statFilter == null) ? null : statFilter.getLatestWindow(dataSource.getName());
+            return (window == null) ? 0.0D : function.applyAsDouble(window);
+        };
+    }
+
+    @Nullable
+    private DruidCompositeStatFilter getFilter() {
+        DruidCompositeStatFilter result = filter;
+        if (result == null && beanFactory.containsBean(DruidFilterConfiguration.STAT_FILTER)) {
+            Object bean = beanFactory.getBean(DruidFilterConfiguration.STAT_FILTER);
+            if (bean instanceof DruidCompositeStatFilter statFilter) {
+                result = statFilter;
+                filter = result;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.metrics;
+
+
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.beans.factory.BeanFactory;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+
+
+/**
+ * Supplier that looks up a component of a datasource bean lazily, such as a decorator or the physical pool
+ * <p>
+ * The meters are bound before the datasource beans are created, so the lookup is deferred until the first measurement, and memoized afterwards
+ *
+ * @author David Hsing
+ */
+public class LazyDataSourceLookup<T> implements Supplier<T> {
+    private final BeanFactory beanFactory;
+    private final String beanName;
+    private final Class<T> componentClass;
+    private volatile T component;
+
+    public LazyDataSourceLookup(@Nonnull BeanFactory beanFactory, @Nonnull String beanName, @Nonnull Class<T> componentClass) {
+        this.beanFactory = beanFactory;
+        this.beanName = beanName;
+        this.componentClass = componentClass;
+    }
+
+    @Nullable
+    @Override
+    public T get() {
+        T result = component;
+        if (result == null && beanFactory.containsBean(beanName)) {
+            result = DataSourcePoolUtils.unwrapPool(beanFactory.getBean(beanName, DataSource.class), componentClass);
+            component = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.metrics;
+
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.TransactionStatus;
+import com.yookue.springstarter.multipledatasource.statement.StatementExecution;
+import com.yookue.springstarter.multipledatasource.statement.StatementExecutionListener;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import com.yookue.springstarter.multipledatasource.transaction.TransactionTiming;
+import com.yookue.springstarter.multipledatasource.transaction.TransactionTimingRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Meter binder for the transactions of the configured datasources, whose {@code metrics.transactions} is true
+ * <p>
+ * The new transactions of the current thread are kept in a stack, so that the first statement of a transaction is attributed to the innermost one of the same datasource.
+ * The stack is created on the first transaction of a thread and removed with the last one, and the meters are resolved once per combination of tags
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.transaction.TransactionTimingInterceptor
+ */
+public class TransactionMeterBinder implements MeterBinder, TransactionTimingRecorder, StatementExecutionListener {
+    private final Set<String> names;
+    private final ThreadLocal<Deque<TransactionTiming>> timings = new ThreadLocal<>();
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    public TransactionMeterBinder(@Nonnull Environment environment) {
+        Set<String> result = new LinkedHashSet<>();
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            if (BooleanUtils.isTrue(DataSourceFeatureProperties.bind(environment, descriptor).getMetrics().getTransactions())) {
+                result.add(descriptor.getName());
+            }
+        }
+        this.names = Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        meters.clear();
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean supports(@Nonnull String name) {
+        return names.contains(name);
+    }
+
+    @Override
+    public void begin(@Nonnull String name, boolean readOnly, @Nonnull TransactionStatus status) {
+        if (names.contains(name)) {
+            Deque<TransactionTiming> stack = timings.get();
+            if (stack == null) {
+                stack = new ArrayDeque<>();
+                timings.set(stack);
+            }
+            stack.push(new TransactionTiming(name, readOnly, status));
+        }
+    }
+
+    @Override
+    public void complete(@Nonnull TransactionStatus status, boolean committed, @Nullable String cause) {
+        Deque<TransactionTiming> stack = timings.get();
+        if (stack == null) {
+            return;
+        }
+        TransactionTiming timing = null;
+        for (Iterator<TransactionTiming> iterator = stack.iterator(); iterator.hasNext(); ) {
+            TransactionTiming candidate = iterator.next();
+            if (candidate.getStatus() == status) {
+                iterator.remove();
+                timing = candidate;
+                break;
+            }
+        }
+        if (stack.isEmpty()) {
+            timings.remove();
+        }
+        MeterRegistry meterRegistry = registry;
+        if (timing == null || meterRegistry == null) {
+            return;
+        }
+        Meters target = metersOf(meterRegistry, timing.getName());
+        target.duration(timing.isReadOnly(), committed).record(System.nanoTime() - timing.getStartNanos(), TimeUnit.NANOSECONDS);
+        if (cause != null) {
+            target.rollbacks(timing.isReadOnly(), cause).increment();
+        }
+    }
+
+    @Override
+    public void beforeExecute(@Nonnull String name, @Nonnull String sql) {
+        Deque<TransactionTiming> stack = timings.get();
+        MeterRegistry meterRegistry = registry;
+        if (stack == null || meterRegistry == null) {
+            return;
+        }
+        for (TransactionTiming timing : stack) {
+            if (timing.getName().equals(name)) {
+                long nanos = timing.markStatement();
+                if (nanos >= 0L) {
+                    metersOf(meterRegistry, name).firstStatement(timing.isReadOnly()).record(nanos, TimeUnit.NANOSECONDS);
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void afterExecute(@Nonnull StatementExecution execution) {
+    }
+
+    @Nonnull
+    private Meters metersOf(@Nonnull MeterRegistry meterRegistry, @Nonnull String name) {
+        return meters.computeIfAbsent(name, key -> new Meters(meterRegistry, key));
+    }
+
+
+    /**
+     * Meters of a datasource for {@code com.yookue.springstarter.multipledatasource.metrics.TransactionMeterBinder}
+     * <p>
+     * The meters are registered on first use of each combination of tags, registering the same meter twice is harmless
+     *
+     * @author David Hsing
+     */
+    private static class Meters {
+        private final MeterRegistry registry;
+        private final String name;
+        private final Timer[] durations = new Timer[4];
+        private final Timer[] firstStatements = new Timer[2];
+        private final Map<String, Counter> rollbacks = new ConcurrentHashMap<>();
+
+        private Meters(@Nonnull MeterRegistry registry, @Nonnull String name) {
+            this.registry = registry;
+            this.name = name;
+        }
+
+        @Nonnull
+        private Timer duration(boolean readOnly, boolean committed) {
+            int index = (readOnly ? 2 : 0) + (committed ? 1 : 0);
+            Timer timer = durations[index];
+            if (timer == null) {
+                timer = Timer.builder("multiple.datasource.transaction.duration")    // $NON-NLS-1$
+                    .description("Duration of the transactions, from begin to completion")    // $NON-NLS-1$
+                    .tags("name", name, "read-only", String.valueOf(readOnly), "outcome", committed ? "commit" : "rollback")    // $NON-NLS-1$ // $NON-NLS-2$ // $NON-NLS-3$ // $NON-NLS-4$ // $NON-NLS-5$
+                    .publishPercentileHistogram()
+                    .register(registry);
+                durations[index] = timer;
+            }
+            return timer;
+        }
+
+        @Nonnull
+        private Timer firstStatement(boolean readOnly) {
+            int index = readOnly ? 1 : 0;
+            Timer timer = firstStatements[index];
+            if (timer == null) {
+                timer = Timer.builder("multiple.datasource.transaction.first-statement")    // $NON-NLS-1$
+                    .description("Time from the begin of the transactions to their first statements")    // $NON-NLS-1$
+                    .tags("name", name, "read-only", String.valueOf(readOnly))    // $NON-NLS-1$ // $NON-NLS-2$
+                    .register(registry);
+                firstStatements[index] = timer;
+            }
+            return timer;
+        }
+
+        @Nonnull
+        private Counter rollbacks(boolean readOnly, @Nonnull String cause) {
+            return rollbacks.computeIfAbsent(readOnly ? cause + "/read-only" : cause, key -> Counter.builder("multiple.datasource.transaction.rollbacks")    // $NON-NLS-1$ // $NON-NLS-2$
+                .description("Rollbacks of the transactions, by cause")    // $NON-NLS-1$
+                .tags("name", name, "read-only", String.valueOf(readOnly), "cause", cause)    // $NON-NLS-1$ // $NON-NLS-2$ // $NON-NLS-3$
+                .register(registry));
+        }
+    }
+}
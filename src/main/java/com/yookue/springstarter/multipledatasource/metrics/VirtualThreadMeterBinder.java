@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.metrics;
+
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.decorator.VirtualThreadGateDataSource;
+import com.yookue.springstarter.multipledatasource.decorator.VirtualThreadPinningMonitor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Meter binder for the virtual thread gates of the configured datasources
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.VirtualThreadGateDataSource
+ * @see com.yookue.springstarter.multipledatasource.decorator.VirtualThreadPinningMonitor
+ */
+public class VirtualThreadMeterBinder implements MeterBinder {
+    private final Environment environment;
+    private final BeanFactory beanFactory;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+
+    public VirtualThreadMeterBinder(@Nonnull Environment environment, @Nonnull BeanFactory beanFactory, @Nullable VirtualThreadPinningMonitor pinningMonitor) {
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            LazyDataSourceLookup<VirtualThreadGateDataSource> lookup = new LazyDataSourceLookup<>(beanFactory, descriptor.getDataSourceBeanName(), VirtualThreadGateDataSource.class);
+            Gauge.builder("multiple.datasource.gate.waiting", lookup, target -> (target.get() == null) ? 0.0D : target.get().getWaitingCount())    // $NON-NLS-1$
+                .description("Virtual threads waiting at the gate of the datasource")    // $NON-NLS-1$
+                .tag("name", descriptor.getName())    // $NON-NLS-1$
+                .register(registry);
+            if (pinningMonitor != null) {
+                FunctionCounter.builder("multiple.datasource.gate.pinned", pinningMonitor, monitor -> monitor.getPinnedCount(descriptor.getName()))    // $NON-NLS-1$
+                    .description("Pinned virtual threads inside the pool of the datasource")    // $NON-NLS-1$
+                    .tag("name", descriptor.getName())    // $NON-NLS-1$
+                    .register(registry);
+            }
+        }
+    }
+}
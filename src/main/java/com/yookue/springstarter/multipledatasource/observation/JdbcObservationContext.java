@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.observation;
+
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import com.yookue.springstarter.multipledatasource.statement.SqlFingerprintCache;
+import com.yookue.springstarter.multipledatasource.util.SqlFingerprintUtils;
+import io.micrometer.observation.Observation;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+
+/**
+ * Context of the jdbc observations on a configured datasource
+ *
+ * @author David Hsing
+ */
+@Getter
+public class JdbcObservationContext extends Observation.Context {
+    private final String dataSourceName;
+    private final String operation;
+    private final String sql;
+    @Getter(value = AccessLevel.NONE)
+    private final SqlFingerprintCache fingerprintCache;
+    private String fingerprint;
+
+    public JdbcObservationContext(@Nonnull String dataSourceName, @Nonnull String operation, @Nullable String sql) {
+        this(dataSourceName, operation, sql, null);
+    }
+
+    public JdbcObservationContext(@Nonnull String dataSourceName, @Nonnull String operation, @Nullable String sql, @Nullable SqlFingerprintCache fingerprintCache) {
+        this.dataSourceName = dataSourceName;
+        this.operation = operation;
+        this.sql = sql;
+        this.fingerprintCache = fingerprintCache;
+    }
+
+    /**
+     * Returns the fingerprint of the sql, which is normalized on first access, or looked up from the fingerprint cache if present
+     *
+     * @return the fingerprint of the sql, or {@code null} if no sql
+     */
+    @Nullable
+    public String getFingerprint() {
+        if (fingerprint == null && sql != null) {
+            fingerprint = (fingerprintCache == null) ? SqlFingerprintUtils.fingerprint(sql, 256) : fingerprintCache.fingerprint(sql);
+        }
+        return fingerprint;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.observation;
+
+
+import jakarta.annotation.Nonnull;
+import io.micrometer.common.KeyValues;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationConvention;
+
+
+/**
+ * Default convention of the jdbc observations on the configured datasources
+ * <p>
+ * The low cardinality key values are the datasource name, the operation and the sql fingerprint,
+ * declare a bean of {@code ObservationConvention<JdbcObservationContext>} to customize them
+ *
+ * @author David Hsing
+ */
+public class JdbcObservationConvention implements ObservationConvention<JdbcObservationContext> {
+    public static final String OBSERVATION_NAME = "multiple.datasource.jdbc";    // $NON-NLS-1$
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return OBSERVATION_NAME;
+    }
+
+    @Nonnull
+    @Override
+    public String getContextualName(@Nonnull JdbcObservationContext context) {
+        return context.getOperation() + " " + context.getDataSourceName();    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    @Override
+    public KeyValues getLowCardinalityKeyValues(@Nonnull JdbcObservationContext context) {
+        KeyValues result = KeyValues.of("name", context.getDataSourceName(), "operation", context.getOperation());    // $NON-NLS-1$ // $NON-NLS-2$
+        String fingerprint = context.getFingerprint();
+        return (fingerprint == null) ? result : result.and("sql.fingerprint", fingerprint);    // $NON-NLS-1$
+    }
+
+    @Override
+    public boolean supportsContext(@Nonnull Observation.Context context) {
+        return context instanceof JdbcObservationContext;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.observation;
+
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.statement.SqlFingerprintCache;
+import com.yookue.springstarter.multipledatasource.statement.StatementExecution;
+import com.yookue.springstarter.multipledatasource.statement.StatementExecutionListener;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationConvention;
+import io.micrometer.observation.ObservationRegistry;
+
+
+/**
+ * Listener that observes the statement executions, for the datasources whose {@code observation.enabled} is true
+ * <p>
+ * The sampling is decided per statement, the statements out of the sample cost no more than a random number.
+ * An observation is started and put in scope before the statement is executed, and stopped after it, on the executing thread.
+ * The fingerprints are normalized once per distinct sql, by a bounded cache shared by the datasources
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.observation.ObservedDataSource
+ */
+public class JdbcObservationListener implements StatementExecutionListener {
+    private static final ObservationConvention<JdbcObservationContext> DEFAULT_CONVENTION = new JdbcObservationConvention();
+    private static final int FINGERPRINT_CACHE_CAPACITY = 1024;
+    private static final int FINGERPRINT_MAX_LENGTH = 256;
+
+    private final Map<String, Double> sampleRates;
+    private final ObjectProvider<ObservationRegistry> registryProvider;
+    private final ObjectProvider<ObservationConvention<JdbcObservationContext>> conventionProvider;
+    private final SqlFingerprintCache fingerprintCache = new SqlFingerprintCache(FINGERPRINT_CACHE_CAPACITY, FINGERPRINT_MAX_LENGTH);
+    private final ThreadLocal<Deque<Observation.Scope>> scopes = ThreadLocal.withInitial(ArrayDeque::new);
+    private volatile ObservationRegistry registry;
+    private volatile ObservationConvention<JdbcObservationContext> convention;
+
+    public JdbcObservationListener(@Nonnull Environment environment, @Nonnull ObjectProvider<ObservationRegistry> registryProvider, @Nonnull ObjectProvider<ObservationConvention<JdbcObservationContext>> conventionProvider) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            DataSourceFeatureProperties.Observation properties = DataSourceFeatureProperties.bind(environment, descriptor).getObservation();
+            double sampleRate = ObjectUtils.defaultIfNull(properties.getSampleRate(), 1.0D);
+            if (BooleanUtils.isTrue(properties.getEnabled()) && sampleRate > 0.0D) {
+                result.put(descriptor.getName(), sampleRate);
+            }
+        }
+        this.sampleRates = Collections.unmodifiableMap(result);
+        this.registryProvider = registryProvider;
+        this.conventionProvider = conventionProvider;
+    }
+
+    @Override
+    public boolean supports(@Nonnull String name) {
+        if (!sampleRates.containsKey(name)) {
+            return false;
+        }
+        ObservationRegistry result = registryProvider.getIfAvailable();
+        if (result == null) {
+            return false;
+        }
+        registry = result;
+        convention = conventionProvider.getIfAvailable();
+        return true;
+    }
+
+    @Override
+    public void beforeExecute(@Nonnull String name, @Nonnull String operation, @Nonnull String sql) {
+        ObservationRegistry observationRegistry = registry;
+        Deque<Observation.Scope> stack = scopes.get();
+        if (observationRegistry == null || observationRegistry.isNoop() || !isSampled(name)) {
+            stack.push(Observation.Scope.NOOP);
+            return;
+        }
+        Observation observation = Observation.createNotStarted(convention, DEFAULT_CONVENTION, () -> new JdbcObservationContext(name, operation, sql, fingerprintCache), observationRegistry).start();
+        stack.push(observation.openScope());
+    }
+
+    @Override
+    public void afterExecute(@Nonnull StatementExecution execution) {
+        Deque<Observation.Scope> stack = scopes.get();
+        Observation.Scope scope = stack.poll();
+        if (stack.isEmpty()) {
+            scopes.remove();
+        }
+        if (scope == null || scope == Observation.Scope.NOOP) {
+            return;
+        }
+        Observation observation = scope.getCurrentObservation();
+        scope.close();
+        if (execution.isFailed()) {
+            observation.error(execution.getFailure());
+        }
+        observation.stop();
+    }
+
+    private boolean isSampled(@Nonnull String name) {
+        Double sampleRate = sampleRates.get(name);
+        return sampleRate != null && (sampleRate >= 1.0D || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.observation;
+
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationConvention;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.Getter;
+
+
+/**
+ * Observed datasource that emits micrometer observations for the connection operations
+ * <p>
+ * The sampling is decided once per connection on {@code getConnection}, the connections out of the sample are returned as is,
+ * so that the unsampled operations cost no more than a random number. For the sampled connections,
+ * {@code getConnection}, {@code commit} and {@code rollback} are observed.
+ * The statement executions are observed by the {@link com.yookue.springstarter.multipledatasource.observation.JdbcObservationListener}
+ *
+ * @author David Hsing
+ */
+@Getter
+public class ObservedDataSource extends DelegatingDataSource implements AutoCloseable {
+    private static final ObservationConvention<JdbcObservationContext> DEFAULT_CONVENTION = new JdbcObservationConvention();
+
+    private final String name;
+    private final ObservationRegistry registry;
+    private final ObservationConvention<JdbcObservationContext> convention;
+    private final double sampleRate;
+
+    public ObservedDataSource(@Nonnull String name, @Nonnull DataSource dataSource, @Nonnull ObservationRegistry registry, @Nullable ObservationConvention<JdbcObservationContext> convention, double sampleRate) {
+        super(dataSource);
+        this.name = name;
+        this.registry = registry;
+        this.convention = convention;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection() throws SQLException {
+        if (!isSampled()) {
+            return obtainTargetDataSource().getConnection();
+        }
+        return proxyConnection(observe("getConnection", null, () -> obtainTargetDataSource().getConnection()));    // $NON-NLS-1$
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!isSampled()) {
+            return obtainTargetDataSource().getConnection(username, password);
+        }
+        return proxyConnection(observe("getConnection", null, () -> obtainTargetDataSource().getConnection(username, password)));    // $NON-NLS-1$
+    }
+
+    private boolean isSampled() {
+        return !registry.isNoop() && sampleRate > 0.0D && (sampleRate >= 1.0D || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private <T> T observe(@Nonnull String operation, @Nullable String sql, @Nonnull Observation.CheckedCallable<T, SQLException> callable) throws SQLException {
+        return Observation.createNotStarted(convention, DEFAULT_CONVENTION, () -> new JdbcObservationContext(name, operation, sql), registry).observeChecked(callable);
+    }
+
+    @Nonnull
+    private Connection proxyConnection(@Nonnull Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    @Nullable
+    private static Object invokeTarget(@Nonnull Object target, @Nonnull Method method, @Nullable Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    @Nullable
+    private Object observeInvocation(@Nonnull String operation, @Nonnull Object target, @Nonnull Method method, @Nullable Object[] args) throws Throwable {
+        Observation observation = Observation.createNotStarted(convention, DEFAULT_CONVENTION, () -> new JdbcObservationContext(name, operation, null), registry).start();
+        try (Observation.Scope ignored = observation.openScope()) {
+            return invokeTarget(target, method, args);
+        } catch (Throwable ex) {
+            observation.error(ex);
+            throw ex;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        DataSourcePoolUtils.closeQuietly(getTargetDataSource());
+    }
+
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(@Nonnull Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, @Nonnull Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            switch (methodName) {
+                case "equals":    // $NON-NLS-1$
+                    return proxy == args[0];
+                case "hashCode":    // $NON-NLS-1$
+                    return System.identityHashCode(proxy);
+                case "commit":    // $NON-NLS-1$
+                case "rollback":    // $NON-NLS-1$
+                    return observeInvocation(methodName, target, method, args);
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.observation;
+
+
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.decorator.DataSourceDecorator;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import io.micrometer.observation.ObservationConvention;
+import io.micrometer.observation.ObservationRegistry;
+
+
+/**
+ * Decorator that wraps the datasource with an observed datasource, if {@code observation.enabled} is true and there is an observation registry
+ * <p>
+ * It is applied outside the bulkhead and the circuit breaker, so that the observations of {@code getConnection} include the waits of them
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.observation.ObservedDataSource
+ */
+public class ObservedDataSourceDecorator implements DataSourceDecorator {
+    public static final int ORDER = 1100;
+
+    private final Environment environment;
+    private final ObjectProvider<ObservationRegistry> registry;
+    private final ObjectProvider<ObservationConvention<JdbcObservationContext>> convention;
+
+    public ObservedDataSourceDecorator(@Nonnull Environment environment, @Nonnull ObjectProvider<ObservationRegistry> registry, @Nonnull ObjectProvider<ObservationConvention<JdbcObservationContext>> convention) {
+        this.environment = environment;
+        this.registry = registry;
+        this.convention = convention;
+    }
+
+    @Nonnull
+    @Override
+    public DataSource decorate(@Nonnull DataSourceDescriptor descriptor, @Nonnull DataSource dataSource) {
+        DataSourceFeatureProperties.Observation properties = DataSourceFeatureProperties.bind(environment, descriptor).getObservation();
+        ObservationRegistry observationRegistry = BooleanUtils.isTrue(properties.getEnabled()) ? registry.getIfAvailable() : null;
+        if (observationRegistry == null) {
+            return dataSource;
+        }
+        double sampleRate = ObjectUtils.defaultIfNull(properties.getSampleRate(), 1.0D);
+        return new ObservedDataSource(descriptor.getName(), dataSource, observationRegistry, convention.getIfAvailable(), sampleRate);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.routing;
+
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaStatistics;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Monitor that probes the replication lag of the replicas on a shared scheduler
+ * <p>
+ * The replicas whose lag exceeds {@code max-lag}, or whose probe fails, are taken out of the read rotation until they catch up.
+ * The probes run in background only, nothing is added to the connection acquisition.
+ * Each replica is probed on a bounded pool of daemon threads, and a probe that has not finished within {@code timeout},
+ * including the connection acquisition, is cancelled and takes the replica out of rotation, without delaying the other replicas.
+ * A replica is not probed again until its previous probe has really exited, and the result of a timed out probe is dropped
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaStatistics
+ */
+@Slf4j
+public class ReplicaLagMonitor implements DisposableBean {
+    private static final int MAX_PROBE_THREADS = 8;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService prober;
+
+    public ReplicaLagMonitor() {
+        CustomizableThreadFactory schedulerFactory = new CustomizableThreadFactory("multiple-datasource-lag-");    // $NON-NLS-1$
+        schedulerFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(schedulerFactory);
+        CustomizableThreadFactory proberFactory = new CustomizableThreadFactory("multiple-datasource-lag-probe-");    // $NON-NLS-1$
+        proberFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_PROBE_THREADS, MAX_PROBE_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), proberFactory);
+        executor.allowCoreThreadTimeOut(true);
+        this.prober = executor;
+    }
+
+    /**
+     * Schedules the lag probe of the specified replicas
+     *
+     * @param name the name of the datasource
+     * @param replicas the replica pools
+     * @param statistics the statistics of the replicas
+     * @param probe the properties of the lag probe
+     *
+     * @return the scheduled probe
+     */
+    @Nonnull
+    public ScheduledFuture<?> schedule(@Nonnull String name, @Nonnull List<DataSource> replicas, @Nonnull ReplicaStatistics statistics, @Nonnull DataSourceFeatureProperties.LagProbe probe) {
+        Assert.hasText(probe.getSql(), "Lag probe sql must not be empty");
+        long interval = Math.max(ObjectUtils.defaultIfNull(probe.getInterval(), Duration.ofSeconds(5L)).toMillis(), 100L);
+        long timeout = Math.max(ObjectUtils.defaultIfNull(probe.getTimeout(), Duration.ofSeconds(3L)).toMillis(), 100L);
+        AtomicIntegerArray running = new AtomicIntegerArray(replicas.size());
+        return scheduler.scheduleWithFixedDelay(() -> {
+            for (int i = 0; i < replicas.size(); i++) {
+                if (!running.compareAndSet(i, 0, 1)) {
+                    continue;
+                }
+                int index = i;
+                AtomicBoolean settled = new AtomicBoolean();
+                Future<?> current;
+                try {
+                    current = prober.submit(() -> {
+                        try {
+                            if (!settled.get()) {
+                                long lagMillis = measure(name, index, replicas.get(index), probe, timeout);
+                                if (settled.compareAndSet(false, true)) {
+                                    update(name, index, lagMillis, statistics, probe);
+                                }
+                            }
+                        } finally {
+                            running.set(index, 0);
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    running.set(index, 0);
+                    return;
+                }
+                scheduler.schedule(() -> {
+                    if (settled.compareAndSet(false, true)) {
+                        current.cancel(true);
+                        update(name, index, -1L, statistics, probe);
+                    }
+                }, timeout, TimeUnit.MILLISECONDS);
+            }
+        }, 0L, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private long measure(@Nonnull String name, int index, @Nonnull DataSource replica, @Nonnull DataSourceFeatureProperties.LagProbe probe, long timeout) {
+        long lagMillis = -1L;
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout((int) Math.max(TimeUnit.MILLISECONDS.toSeconds(timeout), 1L));
+            try (ResultSet resultSet = statement.executeQuery(probe.getSql())) {
+                if (resultSet.next()) {
+                    Double lag = toSeconds(StringUtils.isBlank(probe.getColumn()) ? resultSet.getObject(1) : resultSet.getObject(probe.getColumn()));
+                    lagMillis = (lag == null) ? -1L : Math.max((long) (lag * 1000.0D), 0L);
+                }
+            }
+        } catch (Exception ex) {
+            if (log.isDebugEnabled()) {
+                log.debug("Failed to probe replication lag of datasource '{}' replica [{}]", name, index, ex);
+            }
+        }
+        return lagMillis;
+    }
+
+    private void update(@Nonnull String name, int index, long lagMillis, @Nonnull ReplicaStatistics statistics, @Nonnull DataSourceFeatureProperties.LagProbe probe) {
+        statistics.setLag(index, lagMillis);
+        long maxLag = ObjectUtils.defaultIfNull(probe.getMaxLag(), Duration.ofSeconds(10L)).toMillis();
+        boolean available = lagMillis >= 0L && lagMillis <= maxLag;
+        if (statistics.setAvailable(index, available) && log.isWarnEnabled()) {
+            if (available) {
+                log.warn("Replica [{}] of datasource '{}' caught up with lag {} ms, back into rotation", index, name, lagMillis);
+            } else {
+                log.warn("Replica [{}] of datasource '{}' has lag {} ms (max {} ms), out of rotation", index, name, lagMillis, maxLag);
+            }
+        }
+    }
+
+    @Nullable
+    private Double toSeconds(@Nullable Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        return (value != null && NumberUtils.isCreatable(value.toString())) ? NumberUtils.createDouble(value.toString()) : null;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        prober.shutdownNow();
+    }
+}
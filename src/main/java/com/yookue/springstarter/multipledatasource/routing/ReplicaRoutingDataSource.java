@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.routing;
+
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Future;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import com.yookue.springstarter.multipledatasource.decorator.ConnectionCloseHandler;
+import com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaLoadBalancer;
+import com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaStatistics;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import lombok.Getter;
+
+
+/**
+ * Routing datasource that splits reads and writes between the writer pool and the replica pools
+ * <p>
+ * Routes to a replica when the current transaction is read-only or there is no transaction, otherwise routes to the writer.
+ * The replica is selected by the {@link com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaLoadBalancer},
+ * and routes to the writer if there is no available replica
+ * <p>
+ * Note that the route is determined on {@code getConnection}, so it is wrapped by a lazy connection proxy as the outermost decorator,
+ * which defers the route until the first statement, when the transaction synchronization has been initialized
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.decorator.LazyConnectionDataSource
+ */
+@Getter
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private final String name;
+    private final DataSource writer;
+    private final List<DataSource> replicas;
+    private final ReplicaLoadBalancer loadBalancer;
+    private final ReplicaStatistics statistics;
+    private volatile Future<?> lagProbe;
+
+    public ReplicaRoutingDataSource(@Nonnull String name, @Nonnull DataSource writer, @Nonnull List<DataSource> replicas, @Nonnull ReplicaLoadBalancer loadBalancer, @Nonnull ReplicaStatistics statistics) {
+        Assert.notEmpty(replicas, "Replicas must not be empty");
+        Assert.isTrue(replicas.size() == statistics.getSize(), "Statistics size must be equal to replicas size");
+        this.name = name;
+        this.writer = writer;
+        this.replicas = List.copyOf(replicas);
+        this.loadBalancer = loadBalancer;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return isReadOnlyRoute() ? getReplicaConnection(null, null) : writer.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return isReadOnlyRoute() ? getReplicaConnection(username, password) : writer.getConnection(username, password);
+    }
+
+    @Nonnull
+    private Connection getReplicaConnection(@Nullable String username, @Nullable String password) throws SQLException {
+        int index = loadBalancer.select(statistics);
+        if (index < 0 || !statistics.isAvailable(index)) {
+            return (username == null && password == null) ? writer.getConnection() : writer.getConnection(username, password);
+        }
+        DataSource replica = replicas.get(index);
+        if (!loadBalancer.isTrackingRequired()) {
+            return (username == null && password == null) ? replica.getConnection() : replica.getConnection(username, password);
+        }
+        statistics.acquired(index);
+        long start = System.nanoTime();
+        try {
+            Connection connection = (username == null && password == null) ? replica.getConnection() : replica.getConnection(username, password);
+            return ConnectionCloseHandler.proxy(connection, () -> statistics.released(index, System.nanoTime() - start));
+        } catch (SQLException | RuntimeException ex) {
+            statistics.released(index, -1L);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns whether the current thread should be routed to a replica
+     *
+     * @return whether the current thread should be routed to a replica
+     */
+    public static boolean isReadOnlyRoute() {
+        return !TransactionSynchronizationManager.isActualTransactionActive() || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? (T) this : writer.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || writer.isWrapperFor(iface);
+    }
+
+    /**
+     * Sets the scheduled lag probe of the replicas, which will be cancelled on close
+     *
+     * @param lagProbe the scheduled lag probe
+     */
+    public void setLagProbe(@Nullable Future<?> lagProbe) {
+        this.lagProbe = lagProbe;
+    }
+
+    @Override
+    public void close() {
+        Future<?> probe = lagProbe;
+        if (probe != null) {
+            probe.cancel(true);
+        }
+        replicas.forEach(DataSourcePoolUtils::closeQuietly);
+        DataSourcePoolUtils.closeQuietly(writer);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.routing;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+import com.yookue.springstarter.datasourcebuilder.composer.DataSourceBuilder;
+import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType;
+import com.yookue.springstarter.multipledatasource.decorator.DataSourceDecorator;
+import com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaLoadBalancer;
+import com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaLoadBalancers;
+import com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaStatistics;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import com.yookue.springstarter.multipledatasource.util.DruidFilterUtils;
+
+
+/**
+ * Decorator that builds the replica pools of {@code replicas[*]}, and routes the datasource between the writer and the replicas
+ * <p>
+ * The replica pools are built with the same {@link com.yookue.springstarter.datasourcebuilder.composer.DataSourceBuilder},
+ * the username, password and driver class name are inherited from the writer if absent.
+ * The load balancer is the bean named {@code <name>DataSourceLoadBalancer} if present, otherwise built from {@code load-balance.strategy}.
+ * If {@code lag-probe.sql} is present, the replication lag of the replicas is probed by the {@link com.yookue.springstarter.multipledatasource.routing.ReplicaLagMonitor}
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.routing.ReplicaRoutingDataSource
+ */
+public class ReplicaRoutingDecorator implements DataSourceDecorator {
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+    private static final String DRUID_FILTER_CLASS = "com.alibaba.druid.filter.Filter";    // $NON-NLS-1$
+
+    private final DataSourceBuilder builder;
+    private final Environment environment;
+    private final BeanFactory beanFactory;
+
+    public ReplicaRoutingDecorator(@Nonnull DataSourceBuilder builder, @Nonnull Environment environment, @Nonnull BeanFactory beanFactory) {
+        this.builder = builder;
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+    }
+
+    @Nonnull
+    @Override
+    public DataSource decorate(@Nonnull DataSourceDescriptor descriptor, @Nonnull DataSource dataSource) {
+        DataSourceFeatureProperties features = DataSourceFeatureProperties.bind(environment, descriptor);
+        List<DataSourceFeatureProperties.Replica> replicas = features.getReplicas();
+        if (replicas.isEmpty()) {
+            return dataSource;
+        }
+        DataSourceProperties writerProperties = builder.dataSourceProperties(environment, descriptor.getPrefix());
+        DataSourcePoolType writerType = DataSourcePoolUtils.detectPoolType(ClassUtils.getUserClass(DataSourcePoolUtils.unwrapPool(dataSource)));
+        List<DataSource> replicaPools = new ArrayList<>(replicas.size());
+        List<Integer> weights = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            DataSourceFeatureProperties.Replica replica = replicas.get(i);
+            if (StringUtils.isAllBlank(replica.getUrl(), replica.getJndiName())) {
+                continue;
+            }
+            String replicaPrefix = descriptor.getPrefix() + ".replicas[" + i + "]";    // $NON-NLS-1$ // $NON-NLS-2$
+            replicaPools.add(buildReplica(writerProperties, writerType, replicaPrefix));
+            weights.add(ObjectUtils.defaultIfNull(replica.getWeight(), 1));
+        }
+        if (replicaPools.isEmpty()) {
+            return dataSource;
+        }
+        ReplicaLoadBalancer loadBalancer = beanFactory.containsBean(descriptor.getLoadBalancerBeanName()) ? beanFactory.getBean(descriptor.getLoadBalancerBeanName(), ReplicaLoadBalancer.class) : ReplicaLoadBalancers.create(features.getLoadBalance().getStrategy());
+        double alpha = ObjectUtils.defaultIfNull(features.getLoadBalance().getEwmaAlpha(), 0.3D);
+        ReplicaStatistics statistics = new ReplicaStatistics(weights.stream().mapToInt(Integer::intValue).toArray(), alpha);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(descriptor.getName(), dataSource, replicaPools, loadBalancer, statistics);
+        if (StringUtils.isNotBlank(features.getLagProbe().getSql())) {
+            ReplicaLagMonitor monitor = beanFactory.getBeanProvider(ReplicaLagMonitor.class).getIfAvailable();
+            if (monitor != null) {
+                routing.setLagProbe(monitor.schedule(descriptor.getName(), routing.getReplicas(), statistics, features.getLagProbe()));
+            }
+        }
+        return routing;
+    }
+
+    @Nonnull
+    private DataSource buildReplica(@Nonnull DataSourceProperties writerProperties, DataSourcePoolType writerType, @Nonnull String replicaPrefix) {
+        DataSourceProperties properties = builder.dataSourceProperties(environment, replicaPrefix);
+        if (StringUtils.isBlank(properties.getDriverClassName())) {
+            properties.setDriverClassName(writerProperties.getDriverClassName());
+        }
+        if (StringUtils.isBlank(properties.getUsername())) {
+            properties.setUsername(writerProperties.getUsername());
+        }
+        if (StringUtils.isBlank(properties.getPassword())) {
+            properties.setPassword(writerProperties.getPassword());
+        }
+        if (StringUtils.isNotBlank(properties.getJndiName())) {
+            return builder.dataSource(properties);
+        }
+        String typeName = environment.getProperty(replicaPrefix + ".type");    // $NON-NLS-1$
+        DataSourcePoolType poolType = StringUtils.isBlank(typeName) ? writerType : DataSourcePoolUtils.resolvePoolType(typeName, null);
+        if (poolType == null) {
+            return builder.dataSource(properties);
+        }
+        DataSource result = builder.dataSource(properties, poolType);
+        if (poolType == DataSourcePoolType.DRUID && ClassUtils.isPresent(DRUID_FILTER_CLASS, null)) {
+            DruidFilterUtils.addFilters(result, beanFactory);
+        }
+        return result;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
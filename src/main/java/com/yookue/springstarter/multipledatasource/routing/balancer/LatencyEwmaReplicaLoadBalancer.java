@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.routing.balancer;
+
+
+import java.util.concurrent.ThreadLocalRandom;
+import jakarta.annotation.Nonnull;
+
+
+/**
+ * Load balancer that selects the replica with the lower cost between two random available choices
+ * <p>
+ * The cost is the moving average latency multiplied by the in-flight connections plus one,
+ * the replicas without any sample are preferred, so that they can be measured
+ *
+ * @author David Hsing
+ */
+public class LatencyEwmaReplicaLoadBalancer implements ReplicaLoadBalancer {
+    @Override
+    public int select(@Nonnull ReplicaStatistics statistics) {
+        int size = statistics.getSize();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = statistics.nextAvailable(random.nextInt(size));
+        if (first < 0 || size == 1) {
+            return first;
+        }
+        int second = statistics.nextAvailable(first + 1 + random.nextInt(size - 1));
+        if (second == first) {
+            return first;
+        }
+        return (cost(statistics, first) <= cost(statistics, second)) ? first : second;
+    }
+
+    private double cost(@Nonnull ReplicaStatistics statistics, int index) {
+        long latency = statistics.getLatency(index);
+        return (latency == 0L) ? 0.0D : (double) latency * (statistics.getInFlight(index) + 1);
+    }
+
+    @Override
+    public boolean isTrackingRequired() {
+        return true;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.routing.balancer;
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.annotation.Nonnull;
+
+
+/**
+ * Load balancer that selects the available replica with the least in-flight connections
+ * <p>
+ * The scan starts at a rotating offset, so that the ties are spread across the replicas
+ *
+ * @author David Hsing
+ */
+public class LeastInFlightReplicaLoadBalancer implements ReplicaLoadBalancer {
+    private final AtomicInteger offset = new AtomicInteger();
+
+    @Override
+    public int select(@Nonnull ReplicaStatistics statistics) {
+        int size = statistics.getSize();
+        int start = Math.floorMod(offset.getAndIncrement(), size);
+        int result = -1, least = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            if (!statistics.isAvailable(index)) {
+                continue;
+            }
+            int inFlight = statistics.getInFlight(index);
+            if (inFlight < least) {
+                least = inFlight;
+                result = index;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isTrackingRequired() {
+        return true;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.routing.balancer;
+
+
+import jakarta.annotation.Nonnull;
+
+
+/**
+ * Strategy to select a replica pool behind a routing datasource
+ * <p>
+ * Implementations should be lock-free, since they are invoked on each connection acquisition
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.routing.ReplicaRoutingDataSource
+ */
+public interface ReplicaLoadBalancer {
+    /**
+     * Returns the index of the selected replica, or {@code -1} to route to the writer
+     * <p>
+     * Implementations should skip the replicas that are not {@link ReplicaStatistics#isAvailable(int) available}
+     *
+     * @param statistics the statistics of the replicas
+     *
+     * @return the index of the selected replica, or {@code -1} to route to the writer
+     */
+    int select(@Nonnull ReplicaStatistics statistics);
+
+    /**
+     * Returns whether the strategy requires the in-flight and latency tracking of each connection
+     * <p>
+     * The connections are not proxied if no tracking is required
+     *
+     * @return whether the strategy requires the in-flight and latency tracking of each connection
+     */
+    default boolean isTrackingRequired() {
+        return false;
+    }
+}
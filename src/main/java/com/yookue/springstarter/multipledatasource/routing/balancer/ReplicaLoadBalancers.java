@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.routing.balancer;
+
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import com.yookue.springstarter.multipledatasource.enumeration.LoadBalanceType;
+
+
+/**
+ * Factory for the builtin {@link com.yookue.springstarter.multipledatasource.routing.balancer.ReplicaLoadBalancer}s
+ *
+ * @author David Hsing
+ */
+public abstract class ReplicaLoadBalancers {
+    /**
+     * Returns a new load balancer of the specified type
+     *
+     * @param type the load balance type, defaults to round-robin
+     *
+     * @return a new load balancer of the specified type
+     */
+    @Nonnull
+    public static ReplicaLoadBalancer create(@Nullable LoadBalanceType type) {
+        if (type == null) {
+            return new RoundRobinReplicaLoadBalancer();
+        }
+        return switch (type) {
+            case WEIGHTED -> new WeightedReplicaLoadBalancer();
+            case LEAST_IN_FLIGHT -> new LeastInFlightReplicaLoadBalancer();
+            case LATENCY_EWMA -> new LatencyEwmaReplicaLoadBalancer();
+            default -> new RoundRobinReplicaLoadBalancer();
+        };
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.routing.balancer;
+
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import jakarta.annotation.Nonnull;
+import org.springframework.util.Assert;
+import lombok.Getter;
+
+
+/**
+ * Lock-free statistics of the replicas behind a routing datasource
+ * <p>
+ * The latency is the exponentially weighted moving average of the connection usage time, from acquisition to release.
+ * The availability and the replication lag are maintained by the lag probe, all the replicas are available by default
+ *
+ * @author David Hsing
+ */
+@SuppressWarnings("unused")
+public class ReplicaStatistics {
+    @Getter
+    private final int size;
+    private final int[] weights;
+    private final double alpha;
+    private final AtomicIntegerArray inFlights;
+    private final AtomicLongArray latencies;
+    private final AtomicIntegerArray availabilities;
+    private final AtomicLongArray lags;
+
+    public ReplicaStatistics(@Nonnull int[] weights, double alpha) {
+        Assert.isTrue(weights.length > 0, "Weights must not be empty");
+        Assert.isTrue(alpha > 0.0D && alpha <= 1.0D, "Alpha must be between 0 (exclusive) and 1 (inclusive)");
+        this.size = weights.length;
+        this.weights = weights.clone();
+        this.alpha = alpha;
+        this.inFlights = new AtomicIntegerArray(size);
+        this.latencies = new AtomicLongArray(size);
+        this.availabilities = new AtomicIntegerArray(size);
+        this.lags = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            availabilities.set(i, 1);
+            lags.set(i, -1L);
+        }
+    }
+
+    public int getWeight(int index) {
+        return weights[index];
+    }
+
+    public int getInFlight(int index) {
+        return inFlights.get(index);
+    }
+
+    /**
+     * Returns the moving average latency of the replica in nanoseconds, or {@code 0} if no sample
+     */
+    public long getLatency(int index) {
+        return latencies.get(index);
+    }
+
+    public boolean isAvailable(int index) {
+        return availabilities.get(index) != 0;
+    }
+
+    /**
+     * Sets the availability of the replica
+     *
+     * @return whether the availability has been changed
+     */
+    public boolean setAvailable(int index, boolean available) {
+        return availabilities.getAndSet(index, available ? 1 : 0) != (available ? 1 : 0);
+    }
+
+    /**
+     * Returns the index of the first available replica, scanning cyclically from the specified index, or {@code -1} if none
+     */
+    public int nextAvailable(int from) {
+        for (int i = 0; i < size; i++) {
+            int index = Math.floorMod(from + i, size);
+            if (availabilities.get(index) != 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the last measured replication lag of the replica in milliseconds, or {@code -1} if unknown
+     */
+    public long getLag(int index) {
+        return lags.get(index);
+    }
+
+    public void setLag(int index, long lagMillis) {
+        lags.set(index, lagMillis);
+    }
+
+    public void acquired(int index) {
+        inFlights.incrementAndGet(index);
+    }
+
+    public void released(int index, long elapsedNanos) {
+        inFlights.decrementAndGet(index);
+        if (elapsedNanos < 0L) {
+            return;
+        }
+        long previous, next;
+        do {
+            previous = latencies.get(index);
+            next = (previous == 0L) ? Math.max(elapsedNanos, 1L) : Math.max(previous + (long) (alpha * (elapsedNanos - previous)), 1L);
+        } while (!latencies.compareAndSet(index, previous, next));
+    }
+}
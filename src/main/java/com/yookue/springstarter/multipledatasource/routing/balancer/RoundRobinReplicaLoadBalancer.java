@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.routing.balancer;
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.annotation.Nonnull;
+
+
+/**
+ * Load balancer that selects the available replicas in turn
+ *
+ * @author David Hsing
+ */
+public class RoundRobinReplicaLoadBalancer implements ReplicaLoadBalancer {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public int select(@Nonnull ReplicaStatistics statistics) {
+        return statistics.nextAvailable(counter.getAndIncrement());
+    }
+}
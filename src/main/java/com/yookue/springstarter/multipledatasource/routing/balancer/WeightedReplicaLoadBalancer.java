@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.routing.balancer;
+
+
+import java.util.concurrent.ThreadLocalRandom;
+import jakarta.annotation.Nonnull;
+
+
+/**
+ * Load balancer that selects the available replicas randomly, in proportion to their weights
+ *
+ * @author David Hsing
+ */
+public class WeightedReplicaLoadBalancer implements ReplicaLoadBalancer {
+    @Override
+    public int select(@Nonnull ReplicaStatistics statistics) {
+        int total = 0;
+        for (int i = 0; i < statistics.getSize(); i++) {
+            total += weightOf(statistics, i);
+        }
+        if (total <= 0) {
+            return statistics.nextAvailable(ThreadLocalRandom.current().nextInt(statistics.getSize()));
+        }
+        int point = ThreadLocalRandom.current().nextInt(total);
+        for (int i = 0; i < statistics.getSize(); i++) {
+            point -= weightOf(statistics, i);
+            if (point < 0) {
+                return i;
+            }
+        }
+        return statistics.nextAvailable(statistics.getSize() - 1);
+    }
+
+    private int weightOf(@Nonnull ReplicaStatistics statistics, int index) {
+        return statistics.isAvailable(index) ? Math.max(statistics.getWeight(index), 0) : 0;
+    }
+}
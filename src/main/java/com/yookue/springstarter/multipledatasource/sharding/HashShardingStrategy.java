@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.sharding;
+
+
+import jakarta.annotation.Nonnull;
+
+
+/**
+ * Sharding strategy that takes the modulo of the shard key hash
+ * <p>
+ * The integral number keys are taken by their values, the other keys are taken by their spread hash codes
+ *
+ * @author David Hsing
+ */
+public class HashShardingStrategy implements ShardingStrategy {
+    @Override
+    public int shard(@Nonnull Object shardKey, int shardCount) {
+        if (shardKey instanceof Long || shardKey instanceof Integer || shardKey instanceof Short || shardKey instanceof Byte) {
+            return (int) Math.floorMod(((Number) shardKey).longValue(), (long) shardCount);
+        }
+        int hash = shardKey.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+}
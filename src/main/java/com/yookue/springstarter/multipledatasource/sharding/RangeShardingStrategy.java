@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.sharding;
+
+
+import java.util.List;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.util.Assert;
+
+
+/**
+ * Sharding strategy that selects the shard by the ranges of the shard key
+ * <p>
+ * The boundaries are the exclusive upper bounds of the shards in ascending order, the last shard is unbounded.
+ * Take boundaries {@code [1000, 2000]} as an example, the keys below 1000 go to shard 0, below 2000 go to shard 1, and the others go to shard 2.
+ * The boundaries are validated against the count of the shards once on construction, so that selecting a shard carries no assertion
+ *
+ * @author David Hsing
+ */
+public class RangeShardingStrategy implements ShardingStrategy {
+    private final long[] boundaries;
+
+    public RangeShardingStrategy(@Nonnull List<Long> boundaries, int shardCount) {
+        Assert.isTrue(boundaries.size() < shardCount, "Boundaries must be less than shards");
+        this.boundaries = boundaries.stream().mapToLong(Long::longValue).toArray();
+        for (int i = 1; i < this.boundaries.length; i++) {
+            Assert.isTrue(this.boundaries[i - 1] < this.boundaries[i], "Boundaries must be in ascending order");
+        }
+    }
+
+    @Override
+    public int shard(@Nonnull Object shardKey, int shardCount) {
+        long value = (shardKey instanceof Number number) ? number.longValue() : NumberUtils.createLong(shardKey.toString());
+        int low = 0, high = boundaries.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (value < boundaries[middle]) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+}
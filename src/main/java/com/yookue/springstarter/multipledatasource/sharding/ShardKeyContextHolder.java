@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.sharding;
+
+
+import java.util.function.Supplier;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+
+/**
+ * Holder of the shard key that is bound to the current thread
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.sharding.ShardingDataSource
+ */
+@SuppressWarnings("unused")
+public abstract class ShardKeyContextHolder {
+    private static final ThreadLocal<Object> SHARD_KEY = new ThreadLocal<>();
+
+    @Nullable
+    public static Object getShardKey() {
+        return SHARD_KEY.get();
+    }
+
+    public static void setShardKey(@Nullable Object shardKey) {
+        if (shardKey == null) {
+            SHARD_KEY.remove();
+        } else {
+            SHARD_KEY.set(shardKey);
+        }
+    }
+
+    public static void clearShardKey() {
+        SHARD_KEY.remove();
+    }
+
+    /**
+     * Executes the specified action with the shard key, and restores the previous one afterwards
+     *
+     * @param shardKey the shard key
+     * @param action the action to execute
+     *
+     * @return the result of the action
+     */
+    public static <T> T execute(@Nullable Object shardKey, @Nonnull Supplier<T> action) {
+        Object previous = SHARD_KEY.get();
+        setShardKey(shardKey);
+        try {
+            return action.get();
+        } finally {
+            setShardKey(previous);
+        }
+    }
+
+    /**
+     * Runs the specified action with the shard key, and restores the previous one afterwards
+     *
+     * @param shardKey the shard key
+     * @param action the action to run
+     */
+    public static void run(@Nullable Object shardKey, @Nonnull Runnable action) {
+        execute(shardKey, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.sharding;
+
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+
+
+/**
+ * Method interceptor that binds the argument of {@link com.yookue.springstarter.multipledatasource.sharding.ShardKey} as the shard key
+ *
+ * @author David Hsing
+ */
+public class ShardKeyMethodInterceptor implements MethodInterceptor {
+    private final Map<Method, Integer> parameterIndexes = new ConcurrentHashMap<>();
+
+    @Nullable
+    @Override
+    public Object invoke(@Nonnull MethodInvocation invocation) throws Throwable {
+        Class<?> targetClass = (invocation.getThis() == null) ? null : AopUtils.getTargetClass(invocation.getThis());
+        int index = parameterIndexes.computeIfAbsent(AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass), ShardKeyMethodInterceptor::findParameterIndex);
+        if (index < 0) {
+            return invocation.proceed();
+        }
+        Object previous = ShardKeyContextHolder.getShardKey();
+        ShardKeyContextHolder.setShardKey(invocation.getArguments()[index]);
+        try {
+            return invocation.proceed();
+        } finally {
+            ShardKeyContextHolder.setShardKey(previous);
+        }
+    }
+
+    private static int findParameterIndex(@Nonnull Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Pointcut that matches the methods with a parameter of {@link com.yookue.springstarter.multipledatasource.sharding.ShardKey}
+     *
+     * @author David Hsing
+     */
+    public static class ShardKeyPointcut extends StaticMethodMatcherPointcut {
+        @Override
+        public boolean matches(@Nonnull Method method, @Nullable Class<?> targetClass) {
+            return findParameterIndex(AopUtils.getMostSpecificMethod(method, targetClass)) >= 0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.sharding;
+
+
+import java.util.List;
+import jakarta.annotation.Nonnull;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.util.Assert;
+import lombok.Getter;
+
+
+/**
+ * Routing datasource that selects one of the shards by the shard key of the current thread
+ * <p>
+ * The lookup keys are the names of the shards, such as {@code primary} and {@code secondary}.
+ * If there is no shard key, it routes to the default shard if present, otherwise fails
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.sharding.ShardKeyContextHolder
+ */
+@Getter
+public class ShardingDataSource extends AbstractRoutingDataSource {
+    private final List<String> shards;
+    private final ShardingStrategy strategy;
+
+    public ShardingDataSource(@Nonnull List<String> shards, @Nonnull ShardingStrategy strategy) {
+        Assert.notEmpty(shards, "Shards must not be empty");
+        this.shards = List.copyOf(shards);
+        this.strategy = strategy;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Object shardKey = ShardKeyContextHolder.getShardKey();
+        return (shardKey == null) ? null : shards.get(strategy.shard(shardKey, shards.size()));
+    }
+}
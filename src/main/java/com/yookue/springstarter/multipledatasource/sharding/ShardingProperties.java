@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.sharding;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import com.yookue.springstarter.multipledatasource.enumeration.ShardingType;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+
+/**
+ * Properties for the sharding datasource
+ * <p>
+ * The shards are the names of the configured datasources, such as {@code primary}, {@code secondary} and {@code tertiary}
+ *
+ * @author David Hsing
+ */
+@ConfigurationProperties(prefix = "spring.multiple-datasource.sharding")
+@Getter
+@Setter
+@ToString
+public class ShardingProperties implements Serializable {
+    private Boolean enabled;
+    private ShardingType strategy = ShardingType.HASH;
+    private List<String> shards = new ArrayList<>();
+    private List<Long> ranges = new ArrayList<>();
+    private String defaultShard;
+}
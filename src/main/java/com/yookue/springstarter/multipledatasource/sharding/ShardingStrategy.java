@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.sharding;
+
+
+import jakarta.annotation.Nonnull;
+
+
+/**
+ * Strategy to select a shard by the shard key
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.sharding.ShardingDataSource
+ */
+@FunctionalInterface
+public interface ShardingStrategy {
+    /**
+     * Returns the index of the shard for the specified shard key
+     *
+     * @param shardKey the shard key
+     * @param shardCount the count of the shards
+     *
+     * @return the index of the shard, between {@code 0} (inclusive) and {@code shardCount} (exclusive)
+     */
+    int shard(@Nonnull Object shardKey, int shardCount);
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.statement;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import com.yookue.springstarter.multipledatasource.util.SqlFingerprintUtils;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+
+/**
+ * Listener that tracks the statements in flight, for the datasources whose {@code in-flight-tracking} is true
+ * <p>
+ * The statements are executed synchronously, so at most one statement is in flight per thread.
+ * The sql is exposed as the fingerprint only, which carries no literals, and is normalized on read rather than on execution
+ *
+ * @author David Hsing
+ */
+public class InFlightStatementTracker implements StatementExecutionListener {
+    private final Map<String, Map<Thread, InFlight>> statements;
+
+    public InFlightStatementTracker(@Nonnull Environment environment) {
+        Map<String, Map<Thread, InFlight>> result = new LinkedHashMap<>();
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            if (BooleanUtils.isTrue(DataSourceFeatureProperties.bind(environment, descriptor).getInFlightTracking())) {
+                result.put(descriptor.getName(), new ConcurrentHashMap<>());
+            }
+        }
+        this.statements = Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public boolean supports(@Nonnull String name) {
+        return statements.containsKey(name);
+    }
+
+    @Override
+    public void beforeExecute(@Nonnull String name, @Nonnull String sql) {
+        Map<Thread, InFlight> target = statements.get(name);
+        if (target != null) {
+            Thread thread = Thread.currentThread();
+            target.put(thread, new InFlight(sql, thread.getName(), System.currentTimeMillis(), System.nanoTime()));
+        }
+    }
+
+    @Override
+    public void afterExecute(@Nonnull StatementExecution execution) {
+        Map<Thread, InFlight> target = statements.get(execution.getName());
+        if (target != null) {
+            target.remove(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Returns the statements in flight of the specified datasource, ordered by age descending
+     *
+     * @param name the name of the datasource, such as {@code primary}
+     *
+     * @return the statements in flight of the specified datasource
+     */
+    @Nonnull
+    public List<InFlight> getInFlight(@Nonnull String name) {
+        Map<Thread, InFlight> target = statements.get(name);
+        if (target == null || target.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<InFlight> result = new ArrayList<>(target.values());
+        result.sort((left, right) -> Long.compare(left.startNanos, right.startNanos));
+        return result;
+    }
+
+    /**
+     * Returns whether the specified datasource is tracked
+     *
+     * @param name the name of the datasource, such as {@code primary}
+     *
+     * @return whether the specified datasource is tracked
+     */
+    public boolean isTracked(@Nonnull String name) {
+        return statements.containsKey(name);
+    }
+
+
+    /**
+     * Statement in flight of {@code com.yookue.springstarter.multipledatasource.statement.InFlightStatementTracker}
+     *
+     * @author David Hsing
+     */
+    @AllArgsConstructor
+    @Getter
+    @ToString
+    public static class InFlight {
+        @Getter(value = AccessLevel.NONE)
+        @ToString.Exclude
+        private final String sql;
+        private final String thread;
+        private final long startTime;
+        @Getter(value = AccessLevel.NONE)
+        private final long startNanos;
+
+        @Nonnull
+        @ToString.Include
+        public String getFingerprint() {
+            return SqlFingerprintUtils.fingerprint(sql);
+        }
+
+        public long getAgeMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000L;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.statement;
+
+
+import java.time.Duration;
+import java.time.temporal.Temporal;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+import com.yookue.springstarter.multipledatasource.support.RingBuffer;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Listener that logs the statements over the {@code slow-query-threshold} of their datasources, asynchronously
+ * <p>
+ * The records are built on the executing thread, with the bind parameters and the caller frame,
+ * and offered to a lock-free {@link com.yookue.springstarter.multipledatasource.support.RingBuffer},
+ * which is drained by a daemon thread, so the executing thread never blocks on the appenders
+ *
+ * @author David Hsing
+ */
+@Slf4j
+public class SlowQueryLogger implements StatementExecutionListener, DisposableBean {
+    private static final int MAX_PARAMETERS = 16;
+    private static final int MAX_PARAMETER_LENGTH = 64;
+    private static final long DRAIN_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100L);
+    private static final Set<String> FRAMEWORK_PACKAGES = Set.of("java.", "javax.", "jakarta.", "jdk.", "sun.", "com.sun.", "org.springframework.", "org.hibernate.", "org.apache.ibatis.", "org.mybatis.", "com.zaxxer.", "com.alibaba.druid.", "com.mchange.", "org.apache.commons.dbcp2.", "org.apache.tomcat.jdbc.", "oracle.ucp.", "com.yookue.springstarter.multipledatasource.");    // $NON-NLS-1$ // $NON-NLS-2$ // $NON-NLS-3$ // $NON-NLS-4$ // $NON-NLS-5$ // $NON-NLS-6$ // $NON-NLS-7$ // $NON-NLS-8$ // $NON-NLS-9$ // $NON-NLS-10$ // $NON-NLS-11$ // $NON-NLS-12$ // $NON-NLS-13$ // $NON-NLS-14$ // $NON-NLS-15$ // $NON-NLS-16$ // $NON-NLS-17$
+
+    private final Map<String, Long> thresholds;
+    private final RingBuffer<String> buffer;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    public SlowQueryLogger(@Nonnull Environment environment, int bufferSize) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            Duration threshold = DataSourceFeatureProperties.bind(environment, descriptor).getSlowQueryThreshold();
+            if (threshold != null && !threshold.isNegative() && !threshold.isZero()) {
+                result.put(descriptor.getName(), threshold.toNanos());
+            }
+        }
+        this.thresholds = Collections.unmodifiableMap(result);
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.drainer = new Thread(this::drain, "multiple-datasource-slow-query");    // $NON-NLS-1$
+        this.drainer.setDaemon(true);
+        if (!thresholds.isEmpty()) {
+            drainer.start();
+        }
+    }
+
+    @Override
+    public boolean supports(@Nonnull String name) {
+        return thresholds.containsKey(name);
+    }
+
+    @Override
+    public boolean requiresParameters() {
+        return true;
+    }
+
+    @Override
+    public void afterExecute(@Nonnull StatementExecution execution) {
+        Long threshold = thresholds.get(execution.getName());
+        if (threshold == null || execution.getElapsedNanos() < threshold || !log.isWarnEnabled()) {
+            return;
+        }
+        String record = String.format("Slow query on datasource '%s' took %d ms%s, caller: %s, sql: %s, parameters: %s",    // $NON-NLS-1$
+            execution.getName(), TimeUnit.NANOSECONDS.toMillis(execution.getElapsedNanos()), execution.isFailed() ? " and failed" : "",    // $NON-NLS-1$ // $NON-NLS-2$
+            callerFrame().orElse("unknown"), execution.getSql(), summarizeParameters(execution.getParameters()));    // $NON-NLS-1$
+        buffer.offer(record);
+    }
+
+    @Nonnull
+    private static Optional<String> callerFrame() {
+        return StackWalker.getInstance().walk(frames -> frames.filter(frame -> FRAMEWORK_PACKAGES.stream().noneMatch(frame.getClassName()::startsWith)).findFirst().map(StackWalker.StackFrame::toStackTraceElement).map(StackTraceElement::toString));
+    }
+
+    @Nonnull
+    private static String summarizeParameters(@Nullable List<Object> parameters) {
+        if (parameters == null || parameters.isEmpty()) {
+            return "[]";    // $NON-NLS-1$
+        }
+        StringBuilder builder = new StringBuilder("[");    // $NON-NLS-1$
+        int count = Math.min(parameters.size(), MAX_PARAMETERS);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(", ");    // $NON-NLS-1$
+            }
+            Object parameter = parameters.get(i);
+            if (parameter instanceof CharSequence) {
+                builder.append('\'').append(StringUtils.abbreviate(parameter.toString(), MAX_PARAMETER_LENGTH)).append('\'');
+            } else if (parameter == null || parameter instanceof Number || parameter instanceof Boolean || parameter instanceof Date || parameter instanceof Temporal) {
+                builder.append(parameter);
+            } else {
+                builder.append('<').append(parameter.getClass().getSimpleName()).append('>');
+            }
+        }
+        if (parameters.size() > count) {
+            builder.append(", ...(+").append(parameters.size() - count).append(')');    // $NON-NLS-1$
+        }
+        return builder.append(']').toString();
+    }
+
+    private void drain() {
+        while (running) {
+            String record = buffer.poll();
+            if (record == null) {
+                LockSupport.parkNanos(DRAIN_INTERVAL);
+                continue;
+            }
+            log.warn(record);
+        }
+        for (String record = buffer.poll(); record != null; record = buffer.poll()) {
+            log.warn(record);
+        }
+    }
+
+    /**
+     * Returns the count of the records dropped by the full buffer
+     *
+     * @return the count of the records dropped by the full buffer
+     */
+    public long getDropped() {
+        return buffer.getDropped();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(TimeUnit.SECONDS.toMillis(1L));
+    }
+}
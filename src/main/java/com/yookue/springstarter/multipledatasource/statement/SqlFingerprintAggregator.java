@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.statement;
+
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+
+
+/**
+ * Listener that aggregates the statement executions by sql fingerprint, for the datasources whose {@code sql-statistics.enabled} is true
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.statement.SqlFingerprintStatistics
+ */
+public class SqlFingerprintAggregator implements StatementExecutionListener {
+    private final Map<String, SqlFingerprintStatistics> statistics;
+
+    public SqlFingerprintAggregator(@Nonnull Environment environment) {
+        Map<String, SqlFingerprintStatistics> result = new LinkedHashMap<>();
+        for (DataSourceDescriptor descriptor : DataSourceDescriptors.resolveAll(environment)) {
+            DataSourceFeatureProperties.SqlStatistics properties = DataSourceFeatureProperties.bind(environment, descriptor).getSqlStatistics();
+            if (BooleanUtils.isTrue(properties.getEnabled())) {
+                result.put(descriptor.getName(), new SqlFingerprintStatistics(ObjectUtils.defaultIfNull(properties.getCapacity(), 200)));
+            }
+        }
+        this.statistics = Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public boolean supports(@Nonnull String name) {
+        return statistics.containsKey(name);
+    }
+
+    @Override
+    public void afterExecute(@Nonnull StatementExecution execution) {
+        SqlFingerprintStatistics target = statistics.get(execution.getName());
+        if (target != null) {
+            target.recordExecution(execution.getFingerprint(), execution.getElapsedNanos(), execution.getUpdateCount(), execution.isFailed());
+        }
+    }
+
+    @Override
+    public void afterFetch(@Nonnull StatementExecution execution, long rows) {
+        SqlFingerprintStatistics target = statistics.get(execution.getName());
+        if (target != null) {
+            target.recordFetch(execution.getFingerprint(), rows);
+        }
+    }
+
+    /**
+     * Returns the statistics of the specified datasource
+     *
+     * @param name the name of the datasource, such as {@code primary}
+     *
+     * @return the statistics of the specified datasource, or {@code null} if not enabled
+     */
+    @Nullable
+    public SqlFingerprintStatistics getStatistics(@Nonnull String name) {
+        return statistics.get(name);
+    }
+
+    /**
+     * Returns the top fingerprints of the specified datasource, ordered by count descending
+     *
+     * @param name the name of the datasource, such as {@code primary}
+     * @param limit the max count of the entries
+     *
+     * @return the top fingerprints of the specified datasource
+     */
+    @Nonnull
+    public List<SqlFingerprintStatistics.Entry> getTop(@Nonnull String name, int limit) {
+        SqlFingerprintStatistics target = statistics.get(name);
+        return (target == null) ? Collections.emptyList() : target.getTop(limit);
+    }
+
+    /**
+     * Returns the statistics of all the enabled datasources
+     *
+     * @return the statistics of all the enabled datasources, keyed by the name of the datasource
+     */
+    @Nonnull
+    public Map<String, SqlFingerprintStatistics> getStatistics() {
+        return statistics;
+    }
+}
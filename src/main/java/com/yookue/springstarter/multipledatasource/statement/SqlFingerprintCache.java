@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.statement;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jakarta.annotation.Nonnull;
+import lombok.Getter;
+import com.yookue.springstarter.multipledatasource.util.SqlFingerprintUtils;
+
+
+/**
+ * Cache of the sql fingerprints of a datasource, keyed by the executed sql
+ * <p>
+ * The prepared statements repeat the same sql text, so the fingerprint is normalized once per distinct sql rather than per execution.
+ * The cache is split into segments of access-ordered maps, each evicts its least recently used entry on overflow,
+ * which keeps the memory bounded for the non-parameterized sql of high cardinality, without dropping the hot statements
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.util.SqlFingerprintUtils
+ */
+public class SqlFingerprintCache {
+    private static final int SEGMENTS = 16;
+
+    @Getter
+    private final int maxLength;
+    private final Segment[] segments;
+
+    public SqlFingerprintCache(int capacity) {
+        this(capacity, SqlFingerprintUtils.MAX_LENGTH);
+    }
+
+    public SqlFingerprintCache(int capacity, int maxLength) {
+        this.maxLength = maxLength;
+        int segmentCapacity = Math.max(capacity / SEGMENTS, 1);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the specified sql, which is normalized on the first lookup only
+     *
+     * @param sql the sql to normalize
+     *
+     * @return the fingerprint of the specified sql, truncated to {@code maxLength}
+     */
+    @Nonnull
+    public String fingerprint(@Nonnull String sql) {
+        Segment segment = segments[(sql.hashCode() ^ (sql.hashCode() >>> 16)) & (SEGMENTS - 1)];
+        String result;
+        synchronized (segment) {
+            result = segment.get(sql);
+        }
+        if (result == null) {
+            result = SqlFingerprintUtils.fingerprint(sql, maxLength);
+            synchronized (segment) {
+                segment.put(sql, result);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Entry of {@code com.yookue.springstarter.multipledatasource.statement.SqlFingerprintCache.Segment}
+     *
+     * @author David Hsing
+     */
+    private static class Segment extends LinkedHashMap<String, String> {
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75F, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.statement;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jakarta.annotation.Nonnull;
+import org.springframework.util.Assert;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+
+/**
+ * Statistics of the sql fingerprints of a datasource, bounded by the space-saving top-k algorithm
+ * <p>
+ * At most {@code capacity} fingerprints are tracked in primitive arrays. When a new fingerprint arrives and the slots are full,
+ * it takes over the slot of the least frequent one, inheriting its count as the error, so the memory stays flat regardless of the cardinality.
+ * The slots are split into segments by the hash of the fingerprint, each guarded by its own lock and ordered as a min-heap by count,
+ * so the least frequent slot is found in constant time and a record costs {@code O(log capacity)} at most
+ *
+ * @author David Hsing
+ */
+@SuppressWarnings("unused")
+public class SqlFingerprintStatistics {
+    private static final int MAX_SEGMENTS = 8;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments;
+
+    public SqlFingerprintStatistics(int capacity) {
+        Assert.isTrue(capacity > 0, "Capacity must be positive");
+        int count = Integer.highestOneBit(Math.max(Math.min(MAX_SEGMENTS, capacity / MIN_SEGMENT_CAPACITY), 1));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity / count + ((i < capacity % count) ? 1 : 0));
+        }
+    }
+
+    /**
+     * Records an execution of the specified fingerprint
+     *
+     * @param fingerprint the fingerprint of the sql
+     * @param elapsedNanos the elapsed time of the execution
+     * @param updateCount the update count of the execution, or {@code -1} if none
+     * @param failed whether the execution is failed
+     */
+    public void recordExecution(@Nonnull String fingerprint, long elapsedNanos, long updateCount, boolean failed) {
+        Segment segment = segmentOf(fingerprint);
+        synchronized (segment) {
+            segment.recordExecution(fingerprint, elapsedNanos, updateCount, failed);
+        }
+    }
+
+    /**
+     * Records the fetched rows of the specified fingerprint, if it is still tracked
+     *
+     * @param fingerprint the fingerprint of the sql
+     * @param fetched the count of the fetched rows
+     */
+    public void recordFetch(@Nonnull String fingerprint, long fetched) {
+        if (fetched <= 0L) {
+            return;
+        }
+        Segment segment = segmentOf(fingerprint);
+        synchronized (segment) {
+            segment.recordFetch(fingerprint, fetched);
+        }
+    }
+
+    @Nonnull
+    private Segment segmentOf(@Nonnull String fingerprint) {
+        int hash = fingerprint.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * Returns the tracked fingerprints, ordered by count descending
+     *
+     * @param limit the max count of the entries
+     *
+     * @return the tracked fingerprints, ordered by count descending
+     */
+    @Nonnull
+    public List<Entry> getTop(int limit) {
+        List<Entry> result = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.collect(result);
+            }
+        }
+        result.sort(Comparator.comparingLong(Entry::getCount).reversed());
+        return (result.size() > Math.max(limit, 0)) ? new ArrayList<>(result.subList(0, Math.max(limit, 0))) : result;
+    }
+
+    /**
+     * Clears the tracked fingerprints
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+
+    /**
+     * Segment of {@code com.yookue.springstarter.multipledatasource.statement.SqlFingerprintStatistics}
+     * <p>
+     * The slots hold the fields, and {@code heap} holds the slots as a min-heap by count, with {@code positions} as the inverse of {@code heap}
+     *
+     * @author David Hsing
+     */
+    private static class Segment {
+        private final String[] fingerprints;
+        private final long[] counts;
+        private final long[] errors;
+        private final long[] failures;
+        private final long[] totalNanos;
+        private final long[] maxNanos;
+        private final long[] rows;
+        private final int[] heap;
+        private final int[] positions;
+        private final Map<String, Integer> indexes;
+        private int size;
+
+        private Segment(int capacity) {
+            this.fingerprints = new String[capacity];
+            this.counts = new long[capacity];
+            this.errors = new long[capacity];
+            this.failures = new long[capacity];
+            this.totalNanos = new long[capacity];
+            this.maxNanos = new long[capacity];
+            this.rows = new long[capacity];
+            this.heap = new int[capacity];
+            this.positions = new int[capacity];
+            this.indexes = new HashMap<>(capacity * 2);
+        }
+
+        private void recordExecution(@Nonnull String fingerprint, long elapsedNanos, long updateCount, boolean failed) {
+            int index = slotOf(fingerprint);
+            counts[index]++;
+            siftDown(positions[index]);
+            totalNanos[index] += elapsedNanos;
+            maxNanos[index] = Math.max(maxNanos[index], elapsedNanos);
+            if (updateCount > 0L) {
+                rows[index] += updateCount;
+            }
+            if (failed) {
+                failures[index]++;
+            }
+        }
+
+        private void recordFetch(@Nonnull String fingerprint, long fetched) {
+            Integer index = indexes.get(fingerprint);
+            if (index != null) {
+                rows[index] += fetched;
+            }
+        }
+
+        private int slotOf(@Nonnull String fingerprint) {
+            Integer index = indexes.get(fingerprint);
+            if (index != null) {
+                return index;
+            }
+            if (size < fingerprints.length) {
+                int slot = size++;
+                heap[slot] = slot;
+                positions[slot] = slot;
+                occupy(slot, fingerprint, 0L);
+                siftUp(slot);
+                return slot;
+            }
+            int min = heap[0];
+            indexes.remove(fingerprints[min]);
+            occupy(min, fingerprint, counts[min]);
+            return min;
+        }
+
+        private void occupy(int index, @Nonnull String fingerprint, long error) {
+            fingerprints[index] = fingerprint;
+            counts[index] = error;
+            errors[index] = error;
+            failures[index] = 0L;
+            totalNanos[index] = 0L;
+            maxNanos[index] = 0L;
+            rows[index] = 0L;
+            indexes.put(fingerprint, index);
+        }
+
+        private void siftUp(int position) {
+            int slot = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (counts[heap[parent]] <= counts[slot]) {
+                    break;
+                }
+                place(position, heap[parent]);
+                position = parent;
+            }
+            place(position, slot);
+        }
+
+        private void siftDown(int position) {
+            int slot = heap[position];
+            int half = size >>> 1;
+            while (position < half) {
+                int child = (position << 1) + 1;
+                if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                    child++;
+                }
+                if (counts[slot] <= counts[heap[child]]) {
+                    break;
+                }
+                place(position, heap[child]);
+                position = child;
+            }
+            place(position, slot);
+        }
+
+        private void place(int position, int slot) {
+            heap[position] = slot;
+            positions[slot] = position;
+        }
+
+        private void collect(@Nonnull List<Entry> entries) {
+            for (int index = 0; index < size; index++) {
+                entries.add(new Entry(fingerprints[index], counts[index], errors[index], failures[index], totalNanos[index], maxNanos[index], rows[index]));
+            }
+        }
+
+        private void clear() {
+            Arrays.fill(fingerprints, null);
+            indexes.clear();
+            size = 0;
+        }
+    }
+
+
+    /**
+     * Entry of {@code com.yookue.springstarter.multipledatasource.statement.SqlFingerprintStatistics}
+     * <p>
+     * The {@code count} may be over-estimated by at most {@code error}, the other fields cover the executions since the fingerprint was tracked
+     *
+     * @author David Hsing
+     */
+    @AllArgsConstructor
+    @Getter
+    @ToString
+    public static class Entry {
+        private final String fingerprint;
+        private final long count;
+        private final long error;
+        private final long failures;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long rows;
+
+        public double getMeanNanos() {
+            long executions = count - error;
+            return (executions <= 0L) ? 0.0D : (double) totalNanos / executions;
+        }
+    }
+}
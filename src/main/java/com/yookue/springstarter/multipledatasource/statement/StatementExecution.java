@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.statement;
+
+
+import java.util.List;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import com.yookue.springstarter.multipledatasource.util.SqlFingerprintUtils;
+import lombok.Getter;
+import lombok.ToString;
+
+
+/**
+ * Execution of a statement on a configured datasource, which is passed to the {@link com.yookue.springstarter.multipledatasource.statement.StatementExecutionListener}
+ * <p>
+ * The bind parameters are captured only if any listener requires them, and are valid during the callbacks only
+ *
+ * @author David Hsing
+ */
+@Getter
+@ToString
+@SuppressWarnings("unused")
+public class StatementExecution {
+    private static final String DEFAULT_OPERATION = "execute";    // $NON-NLS-1$
+
+    private final String name;
+    private final String operation;
+    private final String sql;
+    private final long timestamp;
+    private final long elapsedNanos;
+    private final long updateCount;
+    private final Throwable failure;
+    @ToString.Exclude
+    private final List<Object> parameters;
+    @ToString.Exclude
+    private final SqlFingerprintCache fingerprintCache;
+    @ToString.Exclude
+    private volatile String fingerprint;
+
+    public StatementExecution(@Nonnull String name, @Nonnull String sql, long timestamp, long elapsedNanos, long updateCount, @Nullable Throwable failure) {
+        this(name, sql, timestamp, elapsedNanos, updateCount, failure, null);
+    }
+
+    public StatementExecution(@Nonnull String name, @Nonnull String sql, long timestamp, long elapsedNanos, long updateCount, @Nullable Throwable failure, @Nullable List<Object> parameters) {
+        this(name, DEFAULT_OPERATION, sql, timestamp, elapsedNanos, updateCount, failure, parameters, null);
+    }
+
+    StatementExecution(@Nonnull String name, @Nonnull String operation, @Nonnull String sql, long timestamp, long elapsedNanos, long updateCount, @Nullable Throwable failure, @Nullable List<Object> parameters, @Nullable SqlFingerprintCache fingerprintCache) {
+        this.name = name;
+        this.operation = operation;
+        this.sql = sql;
+        this.timestamp = timestamp;
+        this.elapsedNanos = elapsedNanos;
+        this.updateCount = updateCount;
+        this.failure = failure;
+        this.parameters = parameters;
+        this.fingerprintCache = fingerprintCache;
+    }
+
+    /**
+     * Returns the fingerprint of the sql, which is normalized on first access, or looked up from the fingerprint cache of the datasource if present
+     *
+     * @return the fingerprint of the sql
+     *
+     * @see com.yookue.springstarter.multipledatasource.util.SqlFingerprintUtils#fingerprint(String)
+     */
+    @Nonnull
+    public String getFingerprint() {
+        String result = fingerprint;
+        if (result == null) {
+            result = (fingerprintCache == null) ? SqlFingerprintUtils.fingerprint(sql) : fingerprintCache.fingerprint(sql);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the execution is failed
+     *
+     * @return whether the execution is failed
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+}
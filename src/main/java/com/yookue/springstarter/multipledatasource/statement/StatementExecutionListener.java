@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.statement;
+
+
+import jakarta.annotation.Nonnull;
+
+
+/**
+ * Listener of the statement executions on the configured datasources
+ * <p>
+ * The beans of this type are attached to the datasources by the {@link com.yookue.springstarter.multipledatasource.statement.StatementInterceptingDecorator},
+ * the callbacks run on the executing thread, so they should be cheap and never throw
+ *
+ * @author David Hsing
+ */
+public interface StatementExecutionListener {
+    /**
+     * Returns whether this listener applies to the specified datasource
+     *
+     * @param name the name of the datasource, such as {@code primary}
+     *
+     * @return whether this listener applies to the specified datasource
+     */
+    default boolean supports(@Nonnull String name) {
+        return true;
+    }
+
+    /**
+     * Returns whether this listener requires the bind parameters of the prepared statements
+     *
+     * @return whether this listener requires the bind parameters of the prepared statements
+     */
+    default boolean requiresParameters() {
+        return false;
+    }
+
+    /**
+     * Invoked before a statement is executed
+     *
+     * @param name the name of the datasource, such as {@code primary}
+     * @param sql the sql of the statement
+     */
+    default void beforeExecute(@Nonnull String name, @Nonnull String sql) {
+    }
+
+    /**
+     * Invoked before a statement is executed, with the jdbc method that executes it
+     * <p>
+     * Delegates to {@link #beforeExecute(String, String)} by default
+     *
+     * @param name the name of the datasource, such as {@code primary}
+     * @param operation the jdbc method that executes the statement, such as {@code executeQuery}
+     * @param sql the sql of the statement
+     */
+    default void beforeExecute(@Nonnull String name, @Nonnull String operation, @Nonnull String sql) {
+        beforeExecute(name, sql);
+    }
+
+    /**
+     * Invoked after a statement has been executed
+     *
+     * @param execution the execution of the statement
+     */
+    void afterExecute(@Nonnull StatementExecution execution);
+
+    /**
+     * Invoked after the result set of a query has been closed
+     *
+     * @param execution the execution of the query
+     * @param rows the count of the fetched rows
+     */
+    default void afterFetch(@Nonnull StatementExecution execution, long rows) {
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.statement;
+
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Intercepting datasource that times the statement executions, and notifies the {@link com.yookue.springstarter.multipledatasource.statement.StatementExecutionListener}
+ * <p>
+ * The connections, statements and result sets are wrapped by jdk proxies, which works for every pool type.
+ * The fetched rows of a query are counted by the result set, and notified on close of the result set or the statement
+ *
+ * @author David Hsing
+ */
+@Getter
+@Slf4j
+public class StatementInterceptingDataSource extends DelegatingDataSource implements AutoCloseable {
+    private static final Set<String> PREPARE_METHODS = Set.of("prepareStatement", "prepareCall");    // $NON-NLS-1$ // $NON-NLS-2$
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");    // $NON-NLS-1$ // $NON-NLS-2$ // $NON-NLS-3$ // $NON-NLS-4$ // $NON-NLS-5$ // $NON-NLS-6$
+    private static final String BATCH_SQL = "<batch>";    // $NON-NLS-1$
+    private static final int FINGERPRINT_CACHE_CAPACITY = 1024;
+
+    private final String name;
+    private final List<StatementExecutionListener> listeners;
+    private final boolean parametersRequired;
+    @Getter(value = AccessLevel.NONE)
+    private final SqlFingerprintCache fingerprintCache = new SqlFingerprintCache(FINGERPRINT_CACHE_CAPACITY);
+
+    public StatementInterceptingDataSource(@Nonnull String name, @Nonnull DataSource dataSource, @Nonnull List<StatementExecutionListener> listeners) {
+        super(dataSource);
+        this.name = name;
+        this.listeners = List.copyOf(listeners);
+        this.parametersRequired = listeners.stream().anyMatch(StatementExecutionListener::requiresParameters);
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection() throws SQLException {
+        return proxyConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxyConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    @Nonnull
+    private Connection proxyConnection(@Nonnull Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private void notifyBefore(@Nonnull String operation, @Nonnull String sql) {
+        for (StatementExecutionListener listener : listeners) {
+            try {
+                listener.beforeExecute(name, operation, sql);
+            } catch (RuntimeException ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Statement execution listener '{}' failed", listener, ex);
+                }
+            }
+        }
+    }
+
+    private void notifyExecute(@Nonnull StatementExecution execution) {
+        for (StatementExecutionListener listener : listeners) {
+            try {
+                listener.afterExecute(execution);
+            } catch (RuntimeException ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Statement execution listener '{}' failed", listener, ex);
+                }
+            }
+        }
+    }
+
+    private void notifyFetch(@Nonnull StatementExecution execution, long rows) {
+        for (StatementExecutionListener listener : listeners) {
+            try {
+                listener.afterFetch(execution, rows);
+            } catch (RuntimeException ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Statement execution listener '{}' failed", listener, ex);
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private static Object invokeTarget(@Nonnull Object target, @Nonnull Method method, @Nullable Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    private static long sumUpdateCounts(@Nullable Object result) {
+        if (!(result instanceof int[]) && !(result instanceof long[])) {
+            return -1L;
+        }
+        long sum = 0L;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                sum += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                sum += Math.max(count, 0L);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public void close() {
+        DataSourcePoolUtils.closeQuietly(getTargetDataSource());
+    }
+
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(@Nonnull Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, @Nonnull Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":    // $NON-NLS-1$
+                    return proxy == args[0];
+                case "hashCode":    // $NON-NLS-1$
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof Statement statement) {
+                String sql = (PREPARE_METHODS.contains(method.getName()) && args != null && args.length > 0 && args[0] instanceof String string) ? string : null;
+                Class<?> type = (statement instanceof CallableStatement) ? CallableStatement.class : (statement instanceof PreparedStatement) ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, new StatementHandler((Connection) proxy, statement, sql));
+            }
+            return result;
+        }
+    }
+
+
+    private class StatementHandler implements InvocationHandler {
+        private final Connection connection;
+        private final Statement target;
+        private final String preparedSql;
+        private String batchSql;
+        private StatementExecution lastQuery;
+        private ResultSetHandler resultSet;
+        private List<Object> parameters;
+
+        private StatementHandler(@Nonnull Connection connection, @Nonnull Statement target, @Nullable String preparedSql) {
+            this.connection = connection;
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, @Nonnull Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            switch (methodName) {
+                case "equals":    // $NON-NLS-1$
+                    return proxy == args[0];
+                case "hashCode":    // $NON-NLS-1$
+                    return System.identityHashCode(proxy);
+                case "getConnection":    // $NON-NLS-1$
+                    return connection;
+                case "addBatch":    // $NON-NLS-1$
+                    if (args != null && args.length > 0 && args[0] instanceof String string) {
+                        batchSql = (batchSql == null) ? string : BATCH_SQL;
+                    }
+                    break;
+                case "clearBatch":    // $NON-NLS-1$
+                    batchSql = null;
+                    break;
+                case "close":    // $NON-NLS-1$
+                    flushResultSet();
+                    break;
+                case "getResultSet":    // $NON-NLS-1$
+                    return proxyResultSet(proxy, (ResultSet) invokeTarget(target, method, args));
+                case "clearParameters":    // $NON-NLS-1$
+                    if (parameters != null) {
+                        parameters.clear();
+                    }
+                    break;
+                default:
+                    if (parametersRequired && preparedSql != null && methodName.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {    // $NON-NLS-1$
+                        captureParameter(index, methodName.equals("setNull") ? null : args[1]);    // $NON-NLS-1$
+                    }
+                    break;
+            }
+            if (!EXECUTE_METHODS.contains(methodName)) {
+                return invokeTarget(target, method, args);
+            }
+            flushResultSet();
+            String sql = (args != null && args.length > 0 && args[0] instanceof String string) ? string : (preparedSql != null ? preparedSql : batchSql);
+            if (methodName.endsWith("Batch")) {    // $NON-NLS-1$
+                batchSql = null;
+            }
+            String executedSql = (sql == null) ? BATCH_SQL : sql;
+            notifyBefore(methodName, executedSql);
+            long timestamp = System.currentTimeMillis();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(target, method, args);
+            } catch (Throwable ex) {
+                notifyExecute(new StatementExecution(name, methodName, executedSql, timestamp, System.nanoTime() - start, -1L, ex, snapshotParameters(), fingerprintCache));
+                throw ex;
+            }
+            long elapsed = System.nanoTime() - start;
+            long updateCount = (result instanceof Number number) ? number.longValue() : sumUpdateCounts(result);
+            StatementExecution execution = new StatementExecution(name, methodName, executedSql, timestamp, elapsed, updateCount, null, snapshotParameters(), fingerprintCache);
+            lastQuery = execution;
+            notifyExecute(execution);
+            return methodName.equals("executeQuery") ? proxyResultSet(proxy, (ResultSet) result) : result;    // $NON-NLS-1$
+        }
+
+        /**
+         * Returns a copy of the captured parameters, since the list is reused by the next execution of the statement
+         */
+        @Nullable
+        private List<Object> snapshotParameters() {
+            return (parameters == null || parameters.isEmpty()) ? null : new ArrayList<>(parameters);
+        }
+
+        private void captureParameter(int index, @Nullable Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (parameters == null) {
+                parameters = new ArrayList<>();
+            }
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+
+        @Nullable
+        private ResultSet proxyResultSet(@Nonnull Object statement, @Nullable ResultSet result) {
+            if (result == null || lastQuery == null) {
+                return result;
+            }
+            if (resultSet != null && resultSet.target == result) {
+                return resultSet.proxy;
+            }
+            flushResultSet();
+            resultSet = new ResultSetHandler((Statement) statement, result, lastQuery);
+            return resultSet.proxy;
+        }
+
+        private void flushResultSet() {
+            if (resultSet != null) {
+                resultSet.flush();
+                resultSet = null;
+            }
+        }
+    }
+
+
+    private class ResultSetHandler implements InvocationHandler {
+        private final Statement statement;
+        private final ResultSet target;
+        private final ResultSet proxy;
+        private final StatementExecution execution;
+        private long rows;
+        private boolean flushed;
+
+        private ResultSetHandler(@Nonnull Statement statement, @Nonnull ResultSet target, @Nonnull StatementExecution execution) {
+            this.statement = statement;
+            this.target = target;
+            this.execution = execution;
+            this.proxy = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, @Nonnull Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":    // $NON-NLS-1$
+                    return proxy == args[0];
+                case "hashCode":    // $NON-NLS-1$
+                    return System.identityHashCode(proxy);
+                case "getStatement":    // $NON-NLS-1$
+                    return statement;
+                case "next":    // $NON-NLS-1$
+                    Object result = invokeTarget(target, method, args);
+                    if (Boolean.TRUE.equals(result)) {
+                        rows++;
+                    }
+                    return result;
+                case "close":    // $NON-NLS-1$
+                    try {
+                        return invokeTarget(target, method, args);
+                    } finally {
+                        flush();
+                    }
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        private void flush() {
+            if (!flushed) {
+                flushed = true;
+                notifyFetch(execution, rows);
+            }
+        }
+    }
+}
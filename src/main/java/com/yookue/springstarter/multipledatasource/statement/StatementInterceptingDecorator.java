@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.statement;
+
+
+import java.util.List;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import com.yookue.springstarter.multipledatasource.decorator.DataSourceDecorator;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+
+
+/**
+ * Decorator that wraps the datasource with a statement intercepting datasource, if any statement execution listener supports it
+ * <p>
+ * It is applied inside the lazy connection proxy, so that the statements are intercepted after the physical connection has been fetched
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.statement.StatementInterceptingDataSource
+ */
+public class StatementInterceptingDecorator implements DataSourceDecorator {
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 300;
+
+    private final ObjectProvider<StatementExecutionListener> listeners;
+
+    public StatementInterceptingDecorator(@Nonnull ObjectProvider<StatementExecutionListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    @Nonnull
+    @Override
+    public DataSource decorate(@Nonnull DataSourceDescriptor descriptor, @Nonnull DataSource dataSource) {
+        List<StatementExecutionListener> candidates = listeners.orderedStream().filter(listener -> listener.supports(descriptor.getName())).toList();
+        return candidates.isEmpty() ? dataSource : new StatementInterceptingDataSource(descriptor.getName(), dataSource, candidates);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
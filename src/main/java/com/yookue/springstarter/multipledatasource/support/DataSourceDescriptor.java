@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.support;
+
+
+import java.io.Serializable;
+import jakarta.annotation.Nonnull;
+import org.springframework.util.Assert;
+import lombok.Getter;
+import lombok.ToString;
+
+
+/**
+ * Descriptor of a configured datasource, which derives the bean names with the qualifier naming scheme
+ * <p>
+ * Take {@code primary} as an example, the datasource bean is {@code primaryDataSource}, the jdbc template bean is {@code primaryDataSourceJdbcTemplate}
+ *
+ * @author David Hsing
+ */
+@Getter
+@ToString
+@SuppressWarnings("unused")
+public class DataSourceDescriptor implements Serializable {
+    private final String name;
+    private final String prefix;
+
+    public DataSourceDescriptor(@Nonnull String name, @Nonnull String prefix) {
+        Assert.hasText(name, "Name must not be empty");
+        Assert.hasText(prefix, "Prefix must not be empty");
+        this.name = name;
+        this.prefix = prefix;
+    }
+
+    @Nonnull
+    public String getDataSourcePropertiesBeanName() {
+        return name + "DataSourceProperties";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getDataSourceBeanName() {
+        return name + "DataSource";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getJdbcTemplateBeanName() {
+        return name + "DataSourceJdbcTemplate";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getTransactionManagerBeanName() {
+        return name + "DataSourceTransactionManager";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getLoadBalancerBeanName() {
+        return name + "DataSourceLoadBalancer";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getJpaPropertiesBeanName() {
+        return name + "DataSourceJpaProperties";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getPersistenceUnitManagerBeanName() {
+        return name + "DataSourcePersistenceUnitManager";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getPersistenceUnitName() {
+        return name + "DataSourcePersistenceUnit";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getEntityManagerFactoryBeanName() {
+        return name + "DataSourceEntityManagerFactory";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getEntityPackage() {
+        return "**.domain." + name + ".rdbms";    // $NON-NLS-1$ // $NON-NLS-2$
+    }
+
+    @Nonnull
+    public String getPersistenceXmlLocation() {
+        return "classpath*:META-INF/persistence-" + name + ".xml";    // $NON-NLS-1$ // $NON-NLS-2$
+    }
+
+    @Nonnull
+    public String getMybatisPropertiesBeanName() {
+        return name + "MybatisProperties";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getSqlSessionFactoryBeanName() {
+        return name + "SqlSessionFactory";    // $NON-NLS-1$
+    }
+
+    @Nonnull
+    public String getSqlSessionTemplateBeanName() {
+        return name + "SqlSessionTemplate";    // $NON-NLS-1$
+    }
+}
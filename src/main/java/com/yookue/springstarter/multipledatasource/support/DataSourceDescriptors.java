@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.support;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.config.PrimaryDataSourceJdbcConfiguration;
+import com.yookue.springstarter.multipledatasource.config.SecondaryDataSourceJdbcConfiguration;
+import com.yookue.springstarter.multipledatasource.config.TertiaryDataSourceJdbcConfiguration;
+
+
+/**
+ * Utilities for resolving {@link com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor}s from environment
+ *
+ * @author David Hsing
+ */
+@SuppressWarnings("unused")
+public abstract class DataSourceDescriptors {
+    public static final String ROOT_PREFIX = "spring.multiple-datasource";    // $NON-NLS-1$
+    public static final String SOURCES_PREFIX = ROOT_PREFIX + ".sources";    // $NON-NLS-1$
+    public static final String PRIMARY = "primary";    // $NON-NLS-1$
+    public static final String SECONDARY = "secondary";    // $NON-NLS-1$
+    public static final String TERTIARY = "tertiary";    // $NON-NLS-1$
+
+    /**
+     * Returns the descriptors of all the configured datasources, including the fixed ones and the map-driven ones
+     *
+     * @param environment the environment to resolve
+     *
+     * @return the descriptors of all the configured datasources
+     */
+    @Nonnull
+    public static List<DataSourceDescriptor> resolveAll(@Nonnull Environment environment) {
+        if (!environment.getProperty(ROOT_PREFIX + ".enabled", Boolean.class, true)) {    // $NON-NLS-1$
+            return Collections.emptyList();
+        }
+        List<DataSourceDescriptor> result = new ArrayList<>(resolveFixed(environment));
+        result.addAll(resolveSources(environment));
+        return result;
+    }
+
+    /**
+     * Returns the descriptors of the primary, secondary and tertiary datasources
+     *
+     * @param environment the environment to resolve
+     *
+     * @return the descriptors of the primary, secondary and tertiary datasources
+     */
+    @Nonnull
+    public static List<DataSourceDescriptor> resolveFixed(@Nonnull Environment environment) {
+        List<DataSourceDescriptor> result = new ArrayList<>(3);
+        addIfConfigured(result, environment, PRIMARY, PrimaryDataSourceJdbcConfiguration.PROPERTIES_PREFIX);
+        addIfConfigured(result, environment, SECONDARY, SecondaryDataSourceJdbcConfiguration.PROPERTIES_PREFIX);
+        addIfConfigured(result, environment, TERTIARY, TertiaryDataSourceJdbcConfiguration.PROPERTIES_PREFIX);
+        return result;
+    }
+
+    /**
+     * Returns the descriptors of the datasources under {@code spring.multiple-datasource.sources}
+     *
+     * @param environment the environment to resolve
+     *
+     * @return the descriptors of the datasources under {@code spring.multiple-datasource.sources}
+     */
+    @Nonnull
+    public static List<DataSourceDescriptor> resolveSources(@Nonnull Environment environment) {
+        Map<String, DataSourceProperties> sources = Binder.get(environment).bind(SOURCES_PREFIX, Bindable.mapOf(String.class, DataSourceProperties.class)).orElse(null);
+        if (sources == null || sources.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<DataSourceDescriptor> result = new ArrayList<>(sources.size());
+        for (Map.Entry<String, DataSourceProperties> entry : sources.entrySet()) {
+            DataSourceProperties properties = entry.getValue();
+            if (properties != null && (StringUtils.isNotBlank(properties.getUrl()) || StringUtils.isNotBlank(properties.getJndiName()))) {
+                result.add(new DataSourceDescriptor(toBeanNamePrefix(entry.getKey()), SOURCES_PREFIX + '.' + entry.getKey()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the descriptor whose datasource bean name equals to the specified bean name
+     *
+     * @param descriptors the descriptors to search
+     * @param beanName the datasource bean name
+     *
+     * @return the descriptor whose datasource bean name equals to the specified bean name
+     */
+    @Nullable
+    public static DataSourceDescriptor findByBeanName(@Nullable List<DataSourceDescriptor> descriptors, @Nullable String beanName) {
+        if (descriptors == null || StringUtils.isBlank(beanName)) {
+            return null;
+        }
+        return descriptors.stream().filter(element -> StringUtils.equals(element.getDataSourceBeanName(), beanName)).findFirst().orElse(null);
+    }
+
+    /**
+     * Converts the map key into a camel case bean name prefix, such as {@code order-db} to {@code orderDb}
+     *
+     * @param key the map key of the datasource
+     *
+     * @return the camel case bean name prefix
+     */
+    @Nonnull
+    public static String toBeanNamePrefix(@Nonnull String key) {
+        StringBuilder builder = new StringBuilder(key.length());
+        boolean upper = false;
+        for (char ch : key.toCharArray()) {
+            if (ch == '-' || ch == '_' || ch == '.') {
+                upper = !builder.isEmpty();
+                continue;
+            }
+            builder.append(upper ? Character.toUpperCase(ch) : (builder.isEmpty() ? Character.toLowerCase(ch) : ch));
+            upper = false;
+        }
+        return builder.toString();
+    }
+
+    private static void addIfConfigured(@Nonnull List<DataSourceDescriptor> descriptors, @Nonnull Environment environment, @Nonnull String name, @Nonnull String prefix) {
+        if (environment.containsProperty(prefix + ".url") || environment.containsProperty(prefix + ".jndi-name")) {    // $NON-NLS-1$ // $NON-NLS-2$
+            descriptors.add(new DataSourceDescriptor(name, prefix));
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.support;
+
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import jakarta.annotation.Nonnull;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import com.yookue.springstarter.multipledatasource.enumeration.LoadBalanceType;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+
+/**
+ * Properties for the features of a configured datasource, which are bound from the prefix of the datasource
+ * <p>
+ * Take {@code primary} as an example, the prefix is {@code spring.multiple-datasource.primary}
+ *
+ * @author David Hsing
+ */
+@Getter
+@Setter
+@ToString
+public class DataSourceFeatureProperties implements Serializable {
+    private Boolean lazyConnection;
+    private Duration slowQueryThreshold;
+    private Boolean jfrEvents;
+    private Boolean inFlightTracking;
+    private List<Replica> replicas = new ArrayList<>();
+    private final LoadBalance loadBalance = new LoadBalance();
+    private final LagProbe lagProbe = new LagProbe();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final Bulkhead bulkhead = new Bulkhead();
+    private final VirtualThreadGate virtualThreadGate = new VirtualThreadGate();
+    private final Metrics metrics = new Metrics();
+    private final SqlStatistics sqlStatistics = new SqlStatistics();
+    private final Observation observation = new Observation();
+    private final LeakDetection leakDetection = new LeakDetection();
+    private final HealthCheck healthCheck = new HealthCheck();
+
+    /**
+     * Returns the feature properties of the specified datasource
+     *
+     * @param environment the environment to bind
+     * @param descriptor the descriptor of the datasource
+     *
+     * @return the feature properties of the specified datasource
+     */
+    @Nonnull
+    public static DataSourceFeatureProperties bind(@Nonnull Environment environment, @Nonnull DataSourceDescriptor descriptor) {
+        return bind(environment, descriptor.getPrefix());
+    }
+
+    /**
+     * Returns the feature properties of the specified prefix
+     *
+     * @param environment the environment to bind
+     * @param prefix the prefix of the datasource
+     *
+     * @return the feature properties of the specified prefix
+     */
+    @Nonnull
+    public static DataSourceFeatureProperties bind(@Nonnull Environment environment, @Nonnull String prefix) {
+        return Binder.get(environment).bind(prefix, DataSourceFeatureProperties.class).orElseGet(DataSourceFeatureProperties::new);
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.Replica}
+     * <p>
+     * The other keys of each replica, such as {@code username} and {@code type}, are bound as {@link org.springframework.boot.autoconfigure.jdbc.DataSourceProperties}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class Replica implements Serializable {
+        private String url;
+        private String jndiName;
+        private Integer weight = 1;
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.LoadBalance}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class LoadBalance implements Serializable {
+        private LoadBalanceType strategy = LoadBalanceType.ROUND_ROBIN;
+        private Double ewmaAlpha = 0.3D;
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.LagProbe}
+     * <p>
+     * The probe is enabled if {@code sql} is not blank, the value of {@code column} (or the first column) is the replication lag in seconds
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class LagProbe implements Serializable {
+        private String sql;
+        private String column;
+        private Duration maxLag = Duration.ofSeconds(10L);
+        private Duration interval = Duration.ofSeconds(5L);
+        private Duration timeout = Duration.ofSeconds(3L);
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.CircuitBreaker}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class CircuitBreaker implements Serializable {
+        private Boolean enabled = false;
+        private Integer failureThreshold = 5;
+        private Duration waitDuration = Duration.ofSeconds(30L);
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.Bulkhead}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class Bulkhead implements Serializable {
+        private Boolean enabled = false;
+        private Integer maxConcurrent = 10;
+        private Integer queueCapacity = 20;
+        private Duration queueTimeout = Duration.ofSeconds(1L);
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.VirtualThreadGate}
+     * <p>
+     * It takes effect only if {@code spring.threads.virtual.enabled} is true
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class VirtualThreadGate implements Serializable {
+        private Boolean enabled = true;
+        private Integer permits;
+        private Duration acquireTimeout = Duration.ofSeconds(30L);
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.Metrics}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class Metrics implements Serializable {
+        private Boolean enabled = true;
+        private Duration histogramWindow = Duration.ofMinutes(1L);
+        private Integer histogramBuffers = 3;
+        private Boolean transactions = false;
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.SqlStatistics}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class SqlStatistics implements Serializable {
+        private Boolean enabled = false;
+        private Integer capacity = 200;
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.Observation}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class Observation implements Serializable {
+        private Boolean enabled = false;
+        private Double sampleRate = 1.0D;
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.LeakDetection}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class LeakDetection implements Serializable {
+        private Duration threshold;
+        private Double sampleRate = 0.01D;
+    }
+
+
+    /**
+     * Properties for {@code com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties.HealthCheck}
+     *
+     * @author David Hsing
+     */
+    @Getter
+    @Setter
+    @ToString
+    public static class HealthCheck implements Serializable {
+        private Boolean enabled = true;
+        private String validationQuery;
+        private Duration interval = Duration.ofSeconds(10L);
+        private Duration timeout = Duration.ofSeconds(3L);
+        private Duration staleAfter = Duration.ofSeconds(30L);
+    }
+}
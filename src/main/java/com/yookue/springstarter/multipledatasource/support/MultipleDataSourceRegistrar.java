@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.support;
+
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.SharedCacheMode;
+import jakarta.persistence.ValidationMode;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.boot.autoconfigure.MybatisProperties;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.XADataSourceWrapper;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceUnitManager;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.util.ClassUtils;
+import com.yookue.commonplexus.springutil.util.ClassPathWraps;
+import com.yookue.commonplexus.springutil.util.PropertyBinderWraps;
+import com.yookue.springstarter.datasourcebuilder.composer.DataSourceBuilder;
+import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType;
+import com.yookue.springstarter.datasourcebuilder.util.JpaConfigurationUtils;
+import com.yookue.springstarter.multipledatasource.util.DataSourcePoolUtils;
+import com.yookue.springstarter.multipledatasource.util.DruidFilterUtils;
+import com.yookue.springstarter.mybatisdelegator.composer.MybatisConfigurationDelegator;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Registrar for the map-driven datasources under {@code spring.multiple-datasource.sources}
+ * <p>
+ * Each entry registers the same beans as {@code *DataSourceJdbcConfiguration}, {@code *DataSourceJpaConfiguration} and {@code *DataSourceMybatisConfiguration}, with the same qualifier naming scheme
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor
+ */
+@Slf4j
+public class MultipleDataSourceRegistrar implements ImportBeanDefinitionRegistrar, EnvironmentAware, BeanFactoryAware, BeanClassLoaderAware, ResourceLoaderAware {
+    private static final String JPA_DIALECT_CLASS = "org.springframework.orm.jpa.JpaDialect";    // $NON-NLS-1$
+    private static final String JPA_REPOSITORY_CLASS = "org.springframework.data.jpa.repository.JpaRepository";    // $NON-NLS-1$
+    private static final String MYBATIS_SESSION_CLASS = "org.apache.ibatis.session.SqlSession";    // $NON-NLS-1$
+    private static final String MYBATIS_DELEGATOR_CLASS = "com.yookue.springstarter.mybatisdelegator.composer.MybatisConfigurationDelegator";    // $NON-NLS-1$
+    private static final String DRUID_FILTER_CLASS = "com.alibaba.druid.filter.Filter";    // $NON-NLS-1$
+
+    private Environment environment;
+    private BeanFactory beanFactory;
+    private ClassLoader classLoader;
+    private ResourceLoader resourceLoader;
+
+    @Override
+    public void registerBeanDefinitions(@Nonnull AnnotationMetadata metadata, @Nonnull BeanDefinitionRegistry registry) {
+        List<DataSourceDescriptor> descriptors = DataSourceDescriptors.resolveSources(environment);
+        checkNameCollisions(descriptors);
+        for (DataSourceDescriptor descriptor : descriptors) {
+            registerJdbcBeans(descriptor, registry);
+            boolean jpaEnabled = isJpaEnabled(descriptor);
+            if (jpaEnabled) {
+                JpaRegistration.registerBeans(descriptor, registry, beanFactory, environment, resourceLoader);
+            }
+            registerTransactionManager(descriptor, registry, jpaEnabled);
+            if (isMybatisEnabled(descriptor)) {
+                MybatisRegistration.registerBeans(descriptor, registry, beanFactory, environment);
+            }
+        }
+    }
+
+    private void registerJdbcBeans(@Nonnull DataSourceDescriptor descriptor, @Nonnull BeanDefinitionRegistry registry) {
+        registerIfAbsent(registry, descriptor.getDataSourcePropertiesBeanName(), BeanDefinitionBuilder.genericBeanDefinition(DataSourceProperties.class, () -> beanFactory.getBean(DataSourceBuilder.class).dataSourceProperties(environment, descriptor.getPrefix())).getBeanDefinition());
+        DataSourcePoolType poolType = StringUtils.isBlank(environment.getProperty(descriptor.getPrefix() + ".jndi-name")) ? DataSourcePoolUtils.resolvePoolType(environment.getProperty(descriptor.getPrefix() + ".type"), classLoader) : null;    // $NON-NLS-1$ // $NON-NLS-2$
+        AbstractBeanDefinition dataSourceDefinition = BeanDefinitionBuilder.genericBeanDefinition(DataSource.class, () -> buildDataSource(descriptor, poolType)).getBeanDefinition();
+        if (poolType == DataSourcePoolType.DRUID) {
+            dataSourceDefinition.setInitMethodName("init");    // $NON-NLS-1$
+        }
+        dataSourceDefinition.setDestroyMethodName(AbstractBeanDefinition.INFER_METHOD);
+        registerIfAbsent(registry, descriptor.getDataSourceBeanName(), dataSourceDefinition);
+        registerIfAbsent(registry, descriptor.getJdbcTemplateBeanName(), BeanDefinitionBuilder.genericBeanDefinition(JdbcTemplate.class, () -> new JdbcTemplate(beanFactory.getBean(descriptor.getDataSourceBeanName(), DataSource.class))).getBeanDefinition());
+    }
+
+    private void registerTransactionManager(@Nonnull DataSourceDescriptor descriptor, @Nonnull BeanDefinitionRegistry registry, boolean jpaEnabled) {
+        if (jpaEnabled && environment.getProperty(descriptor.getPrefix() + ".jpa.jpa-transaction", Boolean.class, true)) {    // $NON-NLS-1$
+            registerIfAbsent(registry, descriptor.getTransactionManagerBeanName(), BeanDefinitionBuilder.genericBeanDefinition(TransactionManager.class, () -> JpaRegistration.transactionManager(descriptor, beanFactory)).getBeanDefinition());
+        } else if (environment.getProperty(descriptor.getPrefix() + ".jdbc-transaction", Boolean.class, true)) {    // $NON-NLS-1$
+            registerIfAbsent(registry, descriptor.getTransactionManagerBeanName(), BeanDefinitionBuilder.genericBeanDefinition(TransactionManager.class, () -> {
+                DataSource dataSource = beanFactory.getBean(descriptor.getDataSourceBeanName(), DataSource.class);
+                return beanFactory.getBean(DataSourceBuilder.class).jdbcTransactionManager(dataSource, beanFactory.getBeanProvider(TransactionManagerCustomizers.class));
+            }).getBeanDefinition());
+        }
+    }
+
+    @Nonnull
+    private DataSource buildDataSource(@Nonnull DataSourceDescriptor descriptor, DataSourcePoolType poolType) {
+        DataSourceBuilder builder = beanFactory.getBean(DataSourceBuilder.class);
+        DataSourceProperties properties = beanFactory.getBean(descriptor.getDataSourcePropertiesBeanName(), DataSourceProperties.class);
+        try {
+            if (PropertyBinderWraps.contains(environment, descriptor.getPrefix() + ".xa")) {    // $NON-NLS-1$
+                XADataSourceWrapper wrapper = beanFactory.getBeanProvider(XADataSourceWrapper.class).getIfAvailable();
+                if (wrapper != null) {
+                    return builder.xaDataSource(wrapper, properties, null);
+                }
+            }
+            if (poolType == null) {
+                return builder.dataSource(properties);
+            }
+            DataSource dataSource = builder.dataSource(properties, poolType);
+            if (poolType == DataSourcePoolType.DRUID && ClassUtils.isPresent(DRUID_FILTER_CLASS, classLoader)) {
+                DruidFilterUtils.addFilters(dataSource, beanFactory);
+            }
+            return dataSource;
+        } catch (Exception ex) {
+            throw new BeanCreationException(descriptor.getDataSourceBeanName(), "Failed to build datasource for prefix " + descriptor.getPrefix(), ex);
+        }
+    }
+
+    private boolean isJpaEnabled(@Nonnull DataSourceDescriptor descriptor) {
+        return ClassUtils.isPresent(JPA_DIALECT_CLASS, classLoader) && ClassUtils.isPresent(JPA_REPOSITORY_CLASS, classLoader) && environment.getProperty(descriptor.getPrefix() + ".jpa.jpa-enabled", Boolean.class, true);    // $NON-NLS-1$
+    }
+
+    private boolean isMybatisEnabled(@Nonnull DataSourceDescriptor descriptor) {
+        return ClassUtils.isPresent(MYBATIS_SESSION_CLASS, classLoader) && ClassUtils.isPresent(MYBATIS_DELEGATOR_CLASS, classLoader) && PropertyBinderWraps.contains(environment, descriptor.getPrefix() + ".mybatis");    // $NON-NLS-1$
+    }
+
+    private static void checkNameCollisions(@Nonnull List<DataSourceDescriptor> descriptors) {
+        Set<String> names = new HashSet<>(Set.of(DataSourceDescriptors.PRIMARY, DataSourceDescriptors.SECONDARY, DataSourceDescriptors.TERTIARY));
+        for (DataSourceDescriptor descriptor : descriptors) {
+            if (!names.add(descriptor.getName())) {
+                throw new IllegalStateException("Datasource '" + descriptor.getPrefix() + "' resolves to the taken bean name '" + descriptor.getDataSourceBeanName() + "', please rename its key");
+            }
+        }
+    }
+
+    private static void registerIfAbsent(@Nonnull BeanDefinitionRegistry registry, @Nonnull String beanName, @Nonnull AbstractBeanDefinition definition) {
+        if (!registry.containsBeanDefinition(beanName)) {
+            registry.registerBeanDefinition(beanName, definition);
+        } else if (log.isWarnEnabled()) {
+            log.warn("Skipped registering map-driven bean '{}', the bean name has already been taken", beanName);
+        }
+    }
+
+    @Override
+    public void setEnvironment(@Nonnull Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void setBeanFactory(@Nonnull BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setBeanClassLoader(@Nonnull ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public void setResourceLoader(@Nonnull ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+
+    /**
+     * Registration for Spring Data JPA beans, isolated to avoid loading JPA classes when absent
+     */
+    private static class JpaRegistration {
+        private static void registerBeans(@Nonnull DataSourceDescriptor descriptor, @Nonnull BeanDefinitionRegistry registry, @Nonnull BeanFactory beanFactory, @Nonnull Environment environment, @Nonnull ResourceLoader loader) {
+            String prefix = descriptor.getPrefix();
+            boolean jta = PropertyBinderWraps.contains(environment, prefix + ".xa");    // $NON-NLS-1$
+            registerIfAbsent(registry, descriptor.getJpaPropertiesBeanName(), BeanDefinitionBuilder.genericBeanDefinition(JpaProperties.class, () -> Binder.get(environment).bind(prefix + ".jpa", JpaProperties.class).orElseGet(JpaProperties::new)).getBeanDefinition());    // $NON-NLS-1$
+            registerIfAbsent(registry, descriptor.getPersistenceUnitManagerBeanName(), BeanDefinitionBuilder.genericBeanDefinition(PersistenceUnitManager.class, () -> {
+                DataSource dataSource = beanFactory.getBean(descriptor.getDataSourceBeanName(), DataSource.class);
+                String[] xmlLocations = ClassPathWraps.existsResource(descriptor.getPersistenceXmlLocation(), loader.getClassLoader()) ? new String[]{descriptor.getPersistenceXmlLocation()} : ArrayUtils.EMPTY_STRING_ARRAY;
+                return JpaConfigurationUtils.defaultPersistenceUnitManager(descriptor.getPersistenceUnitName(), null, dataSource, new String[]{descriptor.getEntityPackage()}, null, xmlLocations, jta, loader, SharedCacheMode.ENABLE_SELECTIVE, ValidationMode.AUTO, null);
+            }).getBeanDefinition());
+            Supplier<LocalContainerEntityManagerFactoryBean> supplier = () -> {
+                PersistenceUnitManager manager = beanFactory.getBean(descriptor.getPersistenceUnitManagerBeanName(), PersistenceUnitManager.class);
+                JpaProperties properties = beanFactory.getBean(descriptor.getJpaPropertiesBeanName(), JpaProperties.class);
+                DataSource dataSource = beanFactory.getBean(descriptor.getDataSourceBeanName(), DataSource.class);
+                EntityManagerFactoryBuilder builder = new EntityManagerFactoryBuilder(JpaConfigurationUtils.hibernateJpaVendorAdapter(properties), properties.getProperties(), manager);
+                return builder.dataSource(dataSource).packages(descriptor.getEntityPackage()).persistenceUnit(descriptor.getPersistenceUnitName()).properties(properties.getProperties()).jta(jta).build();
+            };
+            registerIfAbsent(registry, descriptor.getEntityManagerFactoryBeanName(), BeanDefinitionBuilder.genericBeanDefinition(LocalContainerEntityManagerFactoryBean.class, supplier).getBeanDefinition());
+        }
+
+        @Nonnull
+        private static TransactionManager transactionManager(@Nonnull DataSourceDescriptor descriptor, @Nonnull BeanFactory beanFactory) {
+            EntityManagerFactory factory = beanFactory.getBean(descriptor.getEntityManagerFactoryBeanName(), EntityManagerFactory.class);
+            return beanFactory.getBean(DataSourceBuilder.class).jpaTransactionManager(factory, beanFactory.getBeanProvider(TransactionManagerCustomizers.class));
+        }
+    }
+
+
+    /**
+     * Registration for mybatis beans, isolated to avoid loading mybatis classes when absent
+     */
+    private static class MybatisRegistration {
+        private static void registerBeans(@Nonnull DataSourceDescriptor descriptor, @Nonnull BeanDefinitionRegistry registry, @Nonnull BeanFactory beanFactory, @Nonnull Environment environment) {
+            registerIfAbsent(registry, descriptor.getMybatisPropertiesBeanName(), BeanDefinitionBuilder.genericBeanDefinition(MybatisProperties.class, () -> Binder.get(environment).bind(descriptor.getPrefix() + ".mybatis", MybatisProperties.class).orElseGet(MybatisProperties::new)).getBeanDefinition());    // $NON-NLS-1$
+            registerIfAbsent(registry, descriptor.getSqlSessionFactoryBeanName(), BeanDefinitionBuilder.genericBeanDefinition(SqlSessionFactory.class, () -> {
+                DataSource dataSource = beanFactory.getBean(descriptor.getDataSourceBeanName(), DataSource.class);
+                MybatisProperties properties = beanFactory.getBean(descriptor.getMybatisPropertiesBeanName(), MybatisProperties.class);
+                try {
+                    return beanFactory.getBean(MybatisConfigurationDelegator.class).sqlSessionFactory(dataSource, properties);
+                } catch (Exception ex) {
+                    throw new BeanCreationException(descriptor.getSqlSessionFactoryBeanName(), "Failed to build sql session factory for prefix " + descriptor.getPrefix(), ex);
+                }
+            }).getBeanDefinition());
+            registerIfAbsent(registry, descriptor.getSqlSessionTemplateBeanName(), BeanDefinitionBuilder.genericBeanDefinition(SqlSessionTemplate.class, () -> {
+                SqlSessionFactory factory = beanFactory.getBean(descriptor.getSqlSessionFactoryBeanName(), SqlSessionFactory.class);
+                MybatisProperties properties = beanFactory.getBean(descriptor.getMybatisPropertiesBeanName(), MybatisProperties.class);
+                return beanFactory.getBean(MybatisConfigurationDelegator.class).sqlSessionTemplate(factory, properties);
+            }).getBeanDefinition());
+        }
+    }
+}
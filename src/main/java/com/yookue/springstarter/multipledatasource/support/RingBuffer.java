@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.support;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.util.Assert;
+
+
+/**
+ * Bounded lock-free ring buffer, for multiple producers and a single consumer
+ * <p>
+ * Each slot carries a sequence number, so that the producers claim the slots by a compare-and-set of the tail without any lock.
+ * The elements are dropped and counted when the buffer is full, so the producers never block
+ *
+ * @author David Hsing
+ */
+@SuppressWarnings("unused")
+public class RingBuffer<E> {
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final int mask;
+    private long head;
+
+    public RingBuffer(int capacity) {
+        Assert.isTrue(capacity > 0, "Capacity must be positive");
+        int size = Integer.highestOneBit(capacity);
+        size = (size < capacity) ? size << 1 : size;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Offers the specified element, or drops it if the buffer is full
+     *
+     * @param element the element to offer
+     *
+     * @return whether the element is accepted
+     */
+    public boolean offer(@Nonnull E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0L) {
+                if (tail.compareAndSet(position, position + 1L)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1L);
+                    return true;
+                }
+            } else if (difference < 0L) {
+                dropped.increment();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Polls an element, which must be invoked by a single consumer
+     *
+     * @return an element, or {@code null} if the buffer is empty
+     */
+    @Nullable
+    public E poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1L) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, head + mask + 1L);
+        head++;
+        return element;
+    }
+
+    /**
+     * Returns the capacity of this buffer, which is rounded up to a power of two
+     *
+     * @return the capacity of this buffer
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the count of the dropped elements
+     *
+     * @return the count of the dropped elements
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.transaction;
+
+
+import jakarta.annotation.Nonnull;
+import org.springframework.transaction.TransactionStatus;
+import lombok.Getter;
+
+
+/**
+ * Timing of a new transaction, from begin to completion
+ *
+ * @author David Hsing
+ */
+@Getter
+public class TransactionTiming {
+    private final String name;
+    private final boolean readOnly;
+    private final TransactionStatus status;
+    private final long startNanos;
+    private boolean statementExecuted;
+
+    public TransactionTiming(@Nonnull String name, boolean readOnly, @Nonnull TransactionStatus status) {
+        this.name = name;
+        this.readOnly = readOnly;
+        this.status = status;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the first statement of the transaction
+     *
+     * @return the nanoseconds from begin to the first statement, or {@code -1} if it has been marked
+     */
+    public long markStatement() {
+        if (statementExecuted) {
+            return -1L;
+        }
+        statementExecuted = true;
+        return System.nanoTime() - startNanos;
+    }
+}
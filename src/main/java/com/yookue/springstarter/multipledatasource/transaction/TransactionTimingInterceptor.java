@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.transaction;
+
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+
+/**
+ * Interceptor of {@code getTransaction}, {@code commit} and {@code rollback} of a transaction manager, which records the timings and the outcomes of the new transactions
+ *
+ * @author David Hsing
+ * @see com.yookue.springstarter.multipledatasource.transaction.TransactionTimingRecorder
+ */
+public class TransactionTimingInterceptor implements MethodInterceptor {
+    private final String name;
+    private final ObjectProvider<TransactionTimingRecorder> recorders;
+
+    public TransactionTimingInterceptor(@Nonnull String name, @Nonnull ObjectProvider<TransactionTimingRecorder> recorders) {
+        this.name = name;
+        this.recorders = recorders;
+    }
+
+    @Nullable
+    @Override
+    public Object invoke(@Nonnull MethodInvocation invocation) throws Throwable {
+        Object[] args = invocation.getArguments();
+        return switch (invocation.getMethod().getName()) {
+            case "getTransaction" -> begin(invocation, (args.length > 0 && args[0] instanceof TransactionDefinition definition) ? definition : null);    // $NON-NLS-1$
+            case "commit" -> (args.length > 0 && args[0] instanceof TransactionStatus status) ? commit(invocation, status) : invocation.proceed();    // $NON-NLS-1$
+            case "rollback" -> (args.length > 0 && args[0] instanceof TransactionStatus status) ? rollback(invocation, status) : invocation.proceed();    // $NON-NLS-1$
+            default -> invocation.proceed();
+        };
+    }
+
+    @Nullable
+    private Object begin(@Nonnull MethodInvocation invocation, @Nullable TransactionDefinition definition) throws Throwable {
+        Object result = invocation.proceed();
+        if (result instanceof TransactionStatus status && status.isNewTransaction()) {
+            recorders.orderedStream().forEach(recorder -> recorder.begin(name, definition != null && definition.isReadOnly(), status));
+        }
+        return result;
+    }
+
+    @Nullable
+    private Object commit(@Nonnull MethodInvocation invocation, @Nonnull TransactionStatus status) throws Throwable {
+        if (!status.isNewTransaction()) {
+            return invocation.proceed();
+        }
+        String cause = null;
+        if (status instanceof DefaultTransactionStatus defaultStatus && defaultStatus.isGlobalRollbackOnly()) {
+            cause = "global-rollback-only";    // $NON-NLS-1$
+        } else if (status.isRollbackOnly()) {
+            cause = "local-rollback-only";    // $NON-NLS-1$
+        }
+        try {
+            Object result = invocation.proceed();
+            complete(status, cause == null, cause);
+            return result;
+        } catch (UnexpectedRollbackException ex) {
+            complete(status, false, (cause == null) ? "unexpected-rollback" : cause);    // $NON-NLS-1$
+            throw ex;
+        } catch (Throwable ex) {
+            complete(status, false, "commit-failure");    // $NON-NLS-1$
+            throw ex;
+        }
+    }
+
+    @Nullable
+    private Object rollback(@Nonnull MethodInvocation invocation, @Nonnull TransactionStatus status) throws Throwable {
+        if (!status.isNewTransaction()) {
+            return invocation.proceed();
+        }
+        try {
+            return invocation.proceed();
+        } finally {
+            complete(status, false, "rollback");    // $NON-NLS-1$
+        }
+    }
+
+    private void complete(@Nonnull TransactionStatus status, boolean committed, @Nullable String cause) {
+        recorders.orderedStream().forEach(recorder -> recorder.complete(status, committed, cause));
+    }
+}
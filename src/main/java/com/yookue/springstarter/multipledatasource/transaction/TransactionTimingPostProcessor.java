@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.transaction;
+
+
+import java.util.List;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptor;
+import com.yookue.springstarter.multipledatasource.support.DataSourceDescriptors;
+import com.yookue.springstarter.multipledatasource.support.DataSourceFeatureProperties;
+
+
+/**
+ * Post processor that applies the {@link com.yookue.springstarter.multipledatasource.transaction.TransactionTimingInterceptor}
+ * to the transaction manager beans of the configured prefixes, whose {@code metrics.transactions} is true
+ * <p>
+ * The transaction managers are proxied by class, so that they can still be injected by their own types, such as {@code JpaTransactionManager}
+ *
+ * @author David Hsing
+ */
+public class TransactionTimingPostProcessor implements BeanPostProcessor, BeanFactoryAware, EnvironmentAware, Ordered {
+    private BeanFactory beanFactory;
+    private Environment environment;
+    private volatile List<DataSourceDescriptor> descriptors;
+
+    @Override
+    public Object postProcessAfterInitialization(@Nonnull Object bean, @Nonnull String beanName) throws BeansException {
+        if (!(bean instanceof PlatformTransactionManager)) {
+            return bean;
+        }
+        DataSourceDescriptor descriptor = getDescriptors().stream().filter(candidate -> candidate.getTransactionManagerBeanName().equals(beanName)).findFirst().orElse(null);
+        if (descriptor == null || BooleanUtils.isNotTrue(DataSourceFeatureProperties.bind(environment, descriptor).getMetrics().getTransactions())) {
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new TransactionTimingInterceptor(descriptor.getName(), beanFactory.getBeanProvider(TransactionTimingRecorder.class)));
+        return factory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    @Nonnull
+    private List<DataSourceDescriptor> getDescriptors() {
+        if (descriptors == null) {
+            descriptors = DataSourceDescriptors.resolveAll(environment);
+        }
+        return descriptors;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public void setBeanFactory(@Nonnull BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setEnvironment(@Nonnull Environment environment) {
+        this.environment = environment;
+    }
+}
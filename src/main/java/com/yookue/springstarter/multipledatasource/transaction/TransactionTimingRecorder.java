@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.transaction;
+
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.transaction.TransactionStatus;
+
+
+/**
+ * Recorder of the transaction timings, which is notified by the {@link com.yookue.springstarter.multipledatasource.transaction.TransactionTimingInterceptor}
+ *
+ * @author David Hsing
+ */
+public interface TransactionTimingRecorder {
+    /**
+     * Records the begin of a new transaction
+     *
+     * @param name the name of the datasource, such as {@code primary}
+     * @param readOnly whether the transaction is read-only
+     * @param status the status of the transaction
+     */
+    void begin(@Nonnull String name, boolean readOnly, @Nonnull TransactionStatus status);
+
+    /**
+     * Records the completion of a transaction
+     *
+     * @param status the status of the transaction
+     * @param committed whether the transaction is committed
+     * @param cause the cause of the rollback, such as {@code rollback}, {@code local-rollback-only}, {@code global-rollback-only},
+     * {@code unexpected-rollback} and {@code commit-failure}
+     */
+    void complete(@Nonnull TransactionStatus status, boolean committed, @Nullable String cause);
+}
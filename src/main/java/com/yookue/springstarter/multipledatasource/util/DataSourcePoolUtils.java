@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.util;
+
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.ClassUtils;
+import com.yookue.springstarter.datasourcebuilder.constant.DataSourcePoolConst;
+import com.yookue.springstarter.datasourcebuilder.enumeration.DataSourcePoolType;
+import com.yookue.springstarter.multipledatasource.routing.ReplicaRoutingDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Utilities for datasource pool types
+ * <p>
+ * The candidates are kept in the same order as the {@code @Order} cascade of {@code *DataSourceJdbcConfiguration}
+ *
+ * @author David Hsing
+ */
+@Slf4j
+@SuppressWarnings("unused")
+public abstract class DataSourcePoolUtils {
+    private static final Map<String, DataSourcePoolType> POOL_TYPES = new LinkedHashMap<>();
+
+    static {
+        POOL_TYPES.put(DataSourcePoolConst.C3P0, DataSourcePoolType.C3P0);
+        POOL_TYPES.put(DataSourcePoolConst.DBCP2, DataSourcePoolType.DBCP2);
+        POOL_TYPES.put(DataSourcePoolConst.DRUID, DataSourcePoolType.DRUID);
+        POOL_TYPES.put(DataSourcePoolConst.HIKARI, DataSourcePoolType.HIKARI);
+        POOL_TYPES.put(DataSourcePoolConst.ORACLE_UCP, DataSourcePoolType.ORACLE_UCP);
+        POOL_TYPES.put(DataSourcePoolConst.ORACLE_UCP_XA, DataSourcePoolType.ORACLE_UCP_XA);
+        POOL_TYPES.put(DataSourcePoolConst.TOMCAT, DataSourcePoolType.TOMCAT);
+    }
+
+    /**
+     * Returns the pool type that matches the specified type name, or the first pool type on the classpath if the type name is blank
+     *
+     * @param typeName the class name of the pool, from the {@code type} property
+     * @param classLoader the class loader to detect the pool classes
+     *
+     * @return the pool type that matches the specified type name, or {@code null} for the generic path
+     */
+    @Nullable
+    public static DataSourcePoolType resolvePoolType(@Nullable String typeName, @Nullable ClassLoader classLoader) {
+        if (StringUtils.isNotBlank(typeName)) {
+            return POOL_TYPES.get(typeName);
+        }
+        for (Map.Entry<String, DataSourcePoolType> entry : POOL_TYPES.entrySet()) {
+            if (ClassUtils.isPresent(entry.getKey(), classLoader)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the pool type of the specified pool class
+     *
+     * @param poolClass the class of the pool
+     *
+     * @return the pool type of the specified pool class, or {@code null} for the generic path
+     */
+    @Nullable
+    public static DataSourcePoolType detectPoolType(@Nullable Class<?> poolClass) {
+        return (poolClass == null) ? null : POOL_TYPES.get(poolClass.getName());
+    }
+
+    /**
+     * Returns the physical pool behind the specified datasource, unwrapping the decorators and the writer of routing
+     *
+     * @param dataSource the datasource to unwrap
+     * @param poolClass the class of the pool
+     *
+     * @return the physical pool behind the specified datasource
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T> T unwrapPool(@Nullable DataSource dataSource, @Nonnull Class<T> poolClass) {
+        DataSource candidate = dataSource;
+        while (candidate != null) {
+            if (poolClass.isInstance(candidate)) {
+                return (T) candidate;
+            }
+            if (candidate instanceof DelegatingDataSource delegating) {
+                candidate = delegating.getTargetDataSource();
+            } else if (candidate instanceof ReplicaRoutingDataSource routing) {
+                candidate = routing.getWriter();
+            } else {
+                return DataSourceUnwrapper.unwrap(candidate, poolClass);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the physical pool behind the specified datasource, unwrapping the decorators and the writer of routing
+     *
+     * @param dataSource the datasource to unwrap
+     *
+     * @return the physical pool behind the specified datasource
+     */
+    @Nullable
+    public static DataSource unwrapPool(@Nullable DataSource dataSource) {
+        DataSource candidate = dataSource;
+        while (candidate instanceof DelegatingDataSource || candidate instanceof ReplicaRoutingDataSource) {
+            candidate = (candidate instanceof DelegatingDataSource delegating) ? delegating.getTargetDataSource() : ((ReplicaRoutingDataSource) candidate).getWriter();
+        }
+        return candidate;
+    }
+
+    /**
+     * Returns the classes of the decorators and the physical pool behind the specified datasource, from the outermost to the innermost
+     *
+     * @param dataSource the datasource to unwrap
+     *
+     * @return the classes of the decorators and the physical pool behind the specified datasource
+     */
+    @Nonnull
+    public static List<Class<?>> getDecoratorChain(@Nullable DataSource dataSource) {
+        List<Class<?>> result = new ArrayList<>();
+        DataSource candidate = dataSource;
+        while (candidate != null) {
+            result.add(ClassUtils.getUserClass(candidate));
+            if (candidate instanceof DelegatingDataSource delegating) {
+                candidate = delegating.getTargetDataSource();
+            } else if (candidate instanceof ReplicaRoutingDataSource routing) {
+                candidate = routing.getWriter();
+            } else {
+                candidate = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the max size of the specified physical pool
+     *
+     * @param pool the physical pool
+     *
+     * @return the max size of the specified physical pool, or {@code null} if unknown
+     */
+    @Nullable
+    public static Integer getMaxPoolSize(@Nullable DataSource pool) {
+        DataSourcePoolType poolType = (pool == null) ? null : detectPoolType(pool.getClass());
+        if (poolType == null) {
+            return null;
+        }
+        return switch (poolType) {
+            case C3P0 -> ((com.mchange.v2.c3p0.ComboPooledDataSource) pool).getMaxPoolSize();
+            case DBCP2 -> ((org.apache.commons.dbcp2.BasicDataSource) pool).getMaxTotal();
+            case DRUID -> ((com.alibaba.druid.pool.DruidDataSource) pool).getMaxActive();
+            case HIKARI -> ((com.zaxxer.hikari.HikariDataSource) pool).getMaximumPoolSize();
+            case TOMCAT -> ((org.apache.tomcat.jdbc.pool.DataSource) pool).getMaxActive();
+            default -> null;
+        };
+    }
+
+    /**
+     * Closes the specified datasource if it is closeable
+     *
+     * @param dataSource the datasource to close
+     */
+    public static void closeQuietly(@Nullable DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ex) {
+                if (log.isWarnEnabled()) {
+                    log.warn("Failed to close datasource '{}'", dataSource, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the class name of the specified pool type
+     *
+     * @param poolType the pool type
+     *
+     * @return the class name of the specified pool type
+     */
+    @Nullable
+    public static String getPoolClassName(@Nonnull DataSourcePoolType poolType) {
+        for (Map.Entry<String, DataSourcePoolType> entry : POOL_TYPES.entrySet()) {
+            if (entry.getValue() == poolType) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.util;
+
+
+import java.util.List;
+import javax.sql.DataSource;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DruidDataSourceBuilder;
+import com.alibaba.druid.filter.Filter;
+import com.alibaba.druid.pool.DruidDataSource;
+
+
+/**
+ * Utilities for druid filters
+ * <p>
+ * Callers should make sure that druid is present, before invoking the methods
+ *
+ * @author David Hsing
+ */
+public abstract class DruidFilterUtils {
+    /**
+     * Adds the druid filter beans to the specified datasource, if it is a druid datasource
+     *
+     * @param dataSource the datasource to add filters
+     * @param beanFactory the bean factory to find filters
+     */
+    public static void addFilters(@Nonnull DataSource dataSource, @Nonnull BeanFactory beanFactory) {
+        if (dataSource instanceof DruidDataSource druidDataSource) {
+            List<Filter> filters = beanFactory.getBeanProvider(Filter.class).orderedStream().toList();
+            DruidDataSourceBuilder.addOrReplaceFilters(druidDataSource, filters);
+        }
+    }
+}
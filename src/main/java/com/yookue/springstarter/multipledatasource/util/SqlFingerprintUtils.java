@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020 Yookue Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yookue.springstarter.multipledatasource.util;
+
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+
+/**
+ * Utilities for sql fingerprints
+ * <p>
+ * A fingerprint is the sql with the comments removed, the literals replaced by {@code ?}, the lists of placeholders collapsed into {@code ?+},
+ * the whitespaces collapsed and the letters lowercased, so that the statements of the same shape share the same fingerprint
+ *
+ * @author David Hsing
+ */
+@SuppressWarnings("unused")
+public abstract class SqlFingerprintUtils {
+    public static final int MAX_LENGTH = 2048;
+
+    /**
+     * Returns the fingerprint of the specified sql, truncated to {@link #MAX_LENGTH}
+     *
+     * @param sql the sql to normalize
+     *
+     * @return the fingerprint of the specified sql
+     */
+    @Nonnull
+    public static String fingerprint(@Nullable String sql) {
+        return fingerprint(sql, MAX_LENGTH);
+    }
+
+    /**
+     * Returns the fingerprint of the specified sql
+     *
+     * @param sql the sql to normalize
+     * @param maxLength the max length of the fingerprint
+     *
+     * @return the fingerprint of the specified sql
+     */
+    @Nonnull
+    public static String fingerprint(@Nullable String sql, int maxLength) {
+        if (sql == null || sql.isEmpty()) {
+            return "";
+        }
+        int length = sql.length();
+        StringBuilder builder = new StringBuilder(Math.min(length, maxLength));
+        int i = 0;
+        while (i < length && builder.length() < maxLength) {
+            char ch = sql.charAt(i);
+            if (ch == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = skipLineComment(sql, i);
+            } else if (ch == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                i = skipBlockComment(sql, i);
+            } else if (ch == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                appendPlaceholder(builder);
+            } else if (ch == '"' || ch == '`') {
+                int end = skipQuoted(sql, i, ch);
+                appendSpaceIfNecessary(builder);
+                builder.append(sql, i, Math.min(end, i + maxLength - builder.length()));
+                i = end;
+            } else if (Character.isWhitespace(ch)) {
+                appendSpaceIfNecessary(builder);
+                i++;
+            } else if (isNumberStart(sql, i) && !isIdentifierPart(builder)) {
+                i = skipNumber(sql, i);
+                appendPlaceholder(builder);
+            } else if (ch == '?') {
+                appendPlaceholder(builder);
+                i++;
+            } else {
+                if (ch == ',' || ch == ')') {
+                    trimTrailingSpace(builder);
+                }
+                builder.append(Character.toLowerCase(ch));
+                i++;
+            }
+        }
+        trimTrailingSpace(builder);
+        return builder.toString();
+    }
+
+    private static void appendPlaceholder(@Nonnull StringBuilder builder) {
+        int end = builder.length();
+        if (end > 0 && builder.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end > 1 && builder.charAt(end - 1) == ',' && (builder.charAt(end - 2) == '?' || builder.charAt(end - 2) == '+')) {
+            builder.setLength(end - 1);
+            if (builder.charAt(end - 2) == '?') {
+                builder.append('+');
+            }
+            return;
+        }
+        if (builder.length() > 0 && isIdentifierChar(builder.charAt(builder.length() - 1))) {
+            builder.append(' ');
+        }
+        builder.append('?');
+    }
+
+    private static void appendSpaceIfNecessary(@Nonnull StringBuilder builder) {
+        int end = builder.length();
+        if (end > 0 && builder.charAt(end - 1) != ' ' && builder.charAt(end - 1) != '(') {
+            builder.append(' ');
+        }
+    }
+
+    private static void trimTrailingSpace(@Nonnull StringBuilder builder) {
+        int end = builder.length();
+        if (end > 0 && builder.charAt(end - 1) == ' ') {
+            builder.setLength(end - 1);
+        }
+    }
+
+    private static boolean isNumberStart(@Nonnull String sql, int index) {
+        char ch = sql.charAt(index);
+        return Character.isDigit(ch) || (ch == '.' && index + 1 < sql.length() && Character.isDigit(sql.charAt(index + 1)));
+    }
+
+    private static boolean isIdentifierPart(@Nonnull StringBuilder builder) {
+        int end = builder.length();
+        return end > 0 && (isIdentifierChar(builder.charAt(end - 1)) || builder.charAt(end - 1) == '.');
+    }
+
+    private static boolean isIdentifierChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$';
+    }
+
+    private static int skipLineComment(@Nonnull String sql, int index) {
+        int end = sql.indexOf('\n', index);
+        return (end < 0) ? sql.length() : end;
+    }
+
+    private static int skipBlockComment(@Nonnull String sql, int index) {
+        int end = sql.indexOf("*/", index + 2);    // $NON-NLS-1$
+        return (end < 0) ? sql.length() : end + 2;
+    }
+
+    private static int skipQuoted(@Nonnull String sql, int index, char quote) {
+        int i = index + 1;
+        while (i < sql.length()) {
+            char ch = sql.charAt(i);
+            if (ch == '\\' && quote == '\'') {
+                i += 2;
+            } else if (ch == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    private static int skipNumber(@Nonnull String sql, int index) {
+        int i = index;
+        if (sql.startsWith("0x", i) || sql.startsWith("0X", i)) {    // $NON-NLS-1$ // $NON-NLS-2$
+            i += 2;
+            while (i < sql.length() && Character.digit(sql.charAt(i), 16) >= 0) {
+                i++;
+            }
+            return i;
+        }
+        while (i < sql.length()) {
+            char ch = sql.charAt(i);
+            if (Character.isDigit(ch) || ch == '.') {
+                i++;
+            } else if ((ch == 'e' || ch == 'E') && i + 1 < sql.length() && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '-' || sql.charAt(i + 1) == '+')) {
+                i += 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+}